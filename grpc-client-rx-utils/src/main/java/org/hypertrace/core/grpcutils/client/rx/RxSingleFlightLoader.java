@@ -0,0 +1,49 @@
+package org.hypertrace.core.grpcutils.client.rx;
+
+import io.reactivex.rxjava3.core.Single;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import org.hypertrace.core.grpcutils.context.ContextualKey;
+import org.hypertrace.core.grpcutils.context.SingleFlightLoader;
+
+/**
+ * An Rx form of {@link SingleFlightLoader}. Subscribers to equal keys share a single in flight
+ * load, which is subscribed to in the context of the key that started it.
+ *
+ * @param <T> the type of the key data
+ * @param <V> the type of the loaded value
+ */
+public class RxSingleFlightLoader<T, V> {
+  private final SingleFlightLoader<T, V> loader;
+
+  public RxSingleFlightLoader(Function<T, Single<V>> loadFunction) {
+    this.loader = new SingleFlightLoader<>(data -> loadFunction.apply(data).toCompletionStage());
+  }
+
+  /** Joins the in flight load of an equal key on subscription, or starts a new one. */
+  public Single<V> load(ContextualKey<T> key) {
+    return Single.defer(() -> fromFuture(this.loader.load(key)));
+  }
+
+  /**
+   * Like {@link #load(ContextualKey)}, but errors with a {@link
+   * java.util.concurrent.TimeoutException} if the load does not complete within the provided
+   * deadline. The load itself continues for any other subscribers.
+   */
+  public Single<V> load(ContextualKey<T> key, Duration deadline) {
+    return Single.defer(() -> fromFuture(this.loader.load(key, deadline)));
+  }
+
+  private static <V> Single<V> fromFuture(CompletableFuture<V> future) {
+    // Errors of each caller's future are wrapped, as it is dependent on the shared load
+    return Single.fromCompletionStage(future)
+        .onErrorResumeNext(
+            throwable ->
+                Single.error(
+                    throwable instanceof CompletionException && throwable.getCause() != null
+                        ? throwable.getCause()
+                        : throwable));
+  }
+}
@@ -0,0 +1,53 @@
+package org.hypertrace.core.grpcutils.client.rx;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.observers.TestObserver;
+import io.reactivex.rxjava3.subjects.SingleSubject;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hypertrace.core.grpcutils.context.ContextualKey;
+import org.hypertrace.core.grpcutils.context.RequestContext;
+import org.junit.jupiter.api.Test;
+
+class RxSingleFlightLoaderTest {
+
+  @Test
+  void sharesInFlightSingleBetweenSubscribers() {
+    AtomicInteger subscriptionCount = new AtomicInteger();
+    SingleSubject<String> downstream = SingleSubject.create();
+    RxSingleFlightLoader<String, String> loader =
+        new RxSingleFlightLoader<>(
+            data -> downstream.doOnSubscribe(unused -> subscriptionCount.incrementAndGet()));
+    ContextualKey<String> key =
+        RequestContext.forTenantId("tenant").buildInternalContextualKey("data");
+
+    Single<String> result = loader.load(key);
+    assertEquals(0, subscriptionCount.get());
+    TestObserver<String> first = result.test();
+    TestObserver<String> second = loader.load(key).test();
+    assertEquals(1, subscriptionCount.get());
+
+    downstream.onSuccess("result");
+    first.assertValue("result");
+    second.assertValue("result");
+  }
+
+  @Test
+  void loadsInKeyContextAndUnwrapsErrors() {
+    RxSingleFlightLoader<String, String> loader =
+        new RxSingleFlightLoader<>(
+            data ->
+                Single.error(
+                    new IllegalStateException(
+                        RequestContext.CURRENT.get().getTenantId().orElseThrow())));
+
+    loader
+        .load(RequestContext.forTenantId("tenant").buildInternalContextualKey("data"))
+        .test()
+        .assertError(
+            throwable ->
+                throwable instanceof IllegalStateException
+                    && throwable.getMessage().equals("tenant"));
+  }
+}
@@ -12,6 +12,12 @@ public class ContextKeyBasedCreds extends RequestContextAsCreds {
     this.contextKey = contextKey;
   }
 
+  public ContextKeyBasedCreds(
+      Context.Key<RequestContext> contextKey, RequestContextPropagationFormat propagationFormat) {
+    super(propagationFormat);
+    this.contextKey = contextKey;
+  }
+
   @Override
   public void applyRequestMetadata(
       RequestInfo requestInfo, Executor appExecutor, MetadataApplier applier) {
@@ -1,11 +1,11 @@
 package org.hypertrace.core.grpcutils.client;
 
-import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
-import static io.grpc.Metadata.BINARY_BYTE_MARSHALLER;
-
 import io.grpc.CallCredentials;
 import io.grpc.Metadata;
 import io.grpc.Status;
+import java.nio.charset.StandardCharsets;
+import org.hypertrace.core.grpcutils.context.MetadataKeys;
+import org.hypertrace.core.grpcutils.context.PackedRequestContext;
 import org.hypertrace.core.grpcutils.context.RequestContext;
 import org.hypertrace.core.grpcutils.context.RequestContext.RequestContextHeader;
 import org.slf4j.Logger;
@@ -14,13 +14,26 @@ import org.slf4j.LoggerFactory;
 public abstract class RequestContextAsCreds extends CallCredentials {
   private static Logger LOGGER = LoggerFactory.getLogger(RequestContextAsCreds.class);
 
+  private final RequestContextPropagationFormat propagationFormat;
+
+  protected RequestContextAsCreds() {
+    this(RequestContextPropagationFormat.INDIVIDUAL_HEADERS);
+  }
+
+  protected RequestContextAsCreds(RequestContextPropagationFormat propagationFormat) {
+    this.propagationFormat = propagationFormat;
+  }
+
   @Override
   public void thisUsesUnstableApi() {}
 
   /**
    * Adds the request headers in the request context to a Metadata object to be propagated in the
    * client call. All the headers are propagated so if any headers should be exempted from
-   * propagation, that should be handled separately before this call is made.
+   * propagation, that should be handled separately before this call is made. Headers are sent
+   * individually or packed into one, according to the {@link RequestContextPropagationFormat}.
+   * Headers read off the wire by tracing or routing are always sent individually, see {@link
+   * PackedRequestContext#isPackable(String)}.
    *
    * @param applier
    * @param requestContext
@@ -28,19 +41,27 @@ public abstract class RequestContextAsCreds extends CallCredentials {
   protected void applyRequestContext(MetadataApplier applier, RequestContext requestContext) {
     Metadata metadata = new Metadata();
     if (requestContext != null) {
+      boolean packHeaders = this.propagationFormat == RequestContextPropagationFormat.PACKED_HEADER;
+      boolean hasPackedHeaders = false;
       for (RequestContextHeader header : requestContext.getAllHeaders()) {
         // Exclude null headers
-        if (header.getValue() != null) {
-          String key = header.getName();
-          if (key.toLowerCase().endsWith(Metadata.BINARY_HEADER_SUFFIX)) {
-            metadata.put(
-                Metadata.Key.of(header.getName(), BINARY_BYTE_MARSHALLER),
-                header.getValue().getBytes());
-          } else {
-            metadata.put(
-                Metadata.Key.of(header.getName(), ASCII_STRING_MARSHALLER), header.getValue());
-          }
+        if (header.getValue() == null) {
+          continue;
         }
+        String key = header.getName();
+        if (packHeaders && PackedRequestContext.isPackable(key)) {
+          hasPackedHeaders = true;
+        } else if (MetadataKeys.isBinaryHeader(key)) {
+          // UTF-8, as the server decodes binary headers
+          metadata.put(
+              MetadataKeys.binaryKey(key), header.getValue().getBytes(StandardCharsets.UTF_8));
+        } else {
+          metadata.put(MetadataKeys.asciiKey(key), header.getValue());
+        }
+      }
+      if (hasPackedHeaders) {
+        metadata.put(
+            PackedRequestContext.METADATA_KEY, PackedRequestContext.encode(requestContext));
       }
     }
     applier.apply(metadata);
@@ -8,8 +8,9 @@ public class RequestContextClientCallCredsProviderFactory {
       implements ClientCallCredentialsProvider {
     private final ContextKeyBasedCreds credsProvider;
 
-    public DefaultRequestContextClientCallCredsProvider() {
-      this.credsProvider = new ContextKeyBasedCreds(RequestContext.CURRENT);
+    public DefaultRequestContextClientCallCredsProvider(
+        RequestContextPropagationFormat propagationFormat) {
+      this.credsProvider = new ContextKeyBasedCreds(RequestContext.CURRENT, propagationFormat);
     }
 
     @Override
@@ -19,6 +20,11 @@ public class RequestContextClientCallCredsProviderFactory {
   }
 
   public static ClientCallCredentialsProvider getClientCallCredsProvider() {
-    return new DefaultRequestContextClientCallCredsProvider();
+    return getClientCallCredsProvider(RequestContextPropagationFormat.INDIVIDUAL_HEADERS);
+  }
+
+  public static ClientCallCredentialsProvider getClientCallCredsProvider(
+      RequestContextPropagationFormat propagationFormat) {
+    return new DefaultRequestContextClientCallCredsProvider(propagationFormat);
   }
 }
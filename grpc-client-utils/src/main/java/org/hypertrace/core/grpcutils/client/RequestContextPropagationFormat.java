@@ -0,0 +1,16 @@
+package org.hypertrace.core.grpcutils.client;
+
+import org.hypertrace.core.grpcutils.context.PackedRequestContext;
+
+/** How the headers of a request context are sent to the server. */
+public enum RequestContextPropagationFormat {
+  /** Each header is sent as a header of its own. */
+  INDIVIDUAL_HEADERS,
+  /**
+   * Headers are sent as the single binary header of {@link PackedRequestContext}, other than the
+   * tenant id, authorization and tracing headers, which are still sent individually for proxies,
+   * gateways and tracing instrumentation. Servers must opt in to decoding it, see {@link
+   * org.hypertrace.core.grpcutils.context.PropagatedHeaderMatcher#withPackedRequestContext()}.
+   */
+  PACKED_HEADER
+}
@@ -6,9 +6,12 @@ import io.grpc.CallCredentials;
 import io.grpc.Context;
 import io.grpc.Metadata;
 import io.grpc.Status;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
+import org.hypertrace.core.grpcutils.context.PropagatedHeaderMatcher;
 import org.hypertrace.core.grpcutils.context.RequestContext;
 import org.hypertrace.core.grpcutils.context.RequestContextConstants;
 import org.junit.jupiter.api.Assertions;
@@ -17,6 +20,7 @@ import org.junit.jupiter.api.Test;
 public class ContextKeyBasedCredsTest {
   private static final String TENANT_ID = "test-tenant-id";
   private static final String TEST_AUTH_HEADER = "test-auth-header";
+  private static final String TEST_REQUEST_ID = "test-request-id";
 
   @Test
   public void testApplyRequestMetadata_shouldApplyAllHeaders() {
@@ -85,4 +89,90 @@ public class ContextKeyBasedCredsTest {
       ctx.detach(previous);
     }
   }
+
+  @Test
+  public void testApplyRequestMetadata_shouldEncodeBinaryHeadersAsUtf8() {
+    CallCredentials callCredentials =
+        RequestContextClientCallCredsProviderFactory.getClientCallCredsProvider().get();
+    RequestContext requestContext = new RequestContext();
+    requestContext.add("X-Custom-Bin", "caf\u00e9");
+
+    Context ctx = Context.current().withValue(RequestContext.CURRENT, requestContext);
+
+    Context previous = ctx.attach();
+    try {
+      callCredentials.applyRequestMetadata(
+          mock(CallCredentials.RequestInfo.class),
+          mock(Executor.class),
+          new CallCredentials.MetadataApplier() {
+            @Override
+            public void apply(Metadata headers) {
+              Assertions.assertArrayEquals(
+                  "caf\u00e9".getBytes(StandardCharsets.UTF_8),
+                  headers.get(Metadata.Key.of("x-custom-bin", Metadata.BINARY_BYTE_MARSHALLER)));
+            }
+
+            @Override
+            public void fail(Status status) {
+              Assertions.fail("Failed in CallCredentials.MetadataApplier");
+            }
+          });
+    } finally {
+      ctx.detach(previous);
+    }
+  }
+
+  @Test
+  public void testApplyRequestMetadata_shouldPackHeadersIfConfigured() {
+    CallCredentials callCredentials =
+        RequestContextClientCallCredsProviderFactory.getClientCallCredsProvider(
+                RequestContextPropagationFormat.PACKED_HEADER)
+            .get();
+
+    RequestContext requestContext = new RequestContext();
+    requestContext.add(RequestContextConstants.TENANT_ID_HEADER_KEY, TENANT_ID);
+    requestContext.add(RequestContextConstants.AUTHORIZATION_HEADER, TEST_AUTH_HEADER);
+    requestContext.add(RequestContextConstants.REQUEST_ID_HEADER_KEY, TEST_REQUEST_ID);
+    requestContext.add("grpc-trace-bin", "AAARf5ZpQwlN/8FVe1axOPlaAQIdRU/Y8j0LAgE");
+    requestContext.add("traceparent", "00-80f198ee56343ba864fe8b2a57d3eff7-e457b5a2e4d86bd1-01");
+    requestContext.add("X-B3-TraceId", "80f198ee56343ba864fe8b2a57d3eff7");
+
+    Context ctx = Context.current().withValue(RequestContext.CURRENT, requestContext);
+
+    Context previous = ctx.attach();
+    try {
+      callCredentials.applyRequestMetadata(
+          mock(CallCredentials.RequestInfo.class),
+          mock(Executor.class),
+          new CallCredentials.MetadataApplier() {
+            @Override
+            public void apply(Metadata headers) {
+              // Tenant, auth and tracing headers stay individual, for proxies and instrumentation
+              Assertions.assertEquals(
+                  Set.of(
+                      RequestContextConstants.PACKED_REQUEST_CONTEXT_HEADER_KEY,
+                      RequestContextConstants.TENANT_ID_HEADER_KEY,
+                      RequestContextConstants.AUTHORIZATION_HEADER,
+                      "grpc-trace-bin",
+                      "traceparent",
+                      "x-b3-traceid"),
+                  headers.keys());
+              Assertions.assertEquals(
+                  TENANT_ID, headers.get(RequestContextConstants.TENANT_ID_METADATA_KEY));
+              Assertions.assertEquals(
+                  requestContext.getRequestId(),
+                  RequestContext.fromMetadata(
+                          headers, PropagatedHeaderMatcher.getDefault().withPackedRequestContext())
+                      .getRequestId());
+            }
+
+            @Override
+            public void fail(Status status) {
+              Assertions.fail("Failed in CallCredentials.MetadataApplier");
+            }
+          });
+    } finally {
+      ctx.detach(previous);
+    }
+  }
 }
@@ -14,6 +14,8 @@ dependencies {
 
   implementation(localLibs.auth0.jwt)
   implementation(localLibs.auth0.jwks.rsa)
+  implementation(localLibs.caffeine)
+  implementation(commonLibs.jackson.databind)
   implementation(commonLibs.guava)
   implementation(commonLibs.slf4j2.api)
 
@@ -23,7 +25,6 @@ dependencies {
   testImplementation(commonLibs.junit.jupiter)
   testImplementation(commonLibs.mockito.core)
   testImplementation(commonLibs.mockito.junit)
-  testImplementation(commonLibs.jackson.databind)
   testAnnotationProcessor(commonLibs.lombok)
   testCompileOnly(commonLibs.lombok)
 }
@@ -0,0 +1,109 @@
+package org.hypertrace.core.grpcutils.context;
+
+import io.grpc.Context;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+
+/**
+ * Forwards to another executor service, running each task in the {@link Context} that was current
+ * when it was submitted. The {@link RequestContext} is carried as part of that context.
+ */
+final class ContextPropagatingExecutorService implements ExecutorService {
+  private final ExecutorService delegate;
+
+  ContextPropagatingExecutorService(ExecutorService delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void execute(@Nonnull Runnable command) {
+    this.delegate.execute(Context.current().wrap(command));
+  }
+
+  @Nonnull
+  @Override
+  public <T> Future<T> submit(@Nonnull Callable<T> task) {
+    return this.delegate.submit(Context.current().wrap(task));
+  }
+
+  @Nonnull
+  @Override
+  public <T> Future<T> submit(@Nonnull Runnable task, T result) {
+    return this.delegate.submit(Context.current().wrap(task), result);
+  }
+
+  @Nonnull
+  @Override
+  public Future<?> submit(@Nonnull Runnable task) {
+    return this.delegate.submit(Context.current().wrap(task));
+  }
+
+  @Nonnull
+  @Override
+  public <T> List<Future<T>> invokeAll(@Nonnull Collection<? extends Callable<T>> tasks)
+      throws InterruptedException {
+    return this.delegate.invokeAll(wrapAll(tasks));
+  }
+
+  @Nonnull
+  @Override
+  public <T> List<Future<T>> invokeAll(
+      @Nonnull Collection<? extends Callable<T>> tasks, long timeout, @Nonnull TimeUnit unit)
+      throws InterruptedException {
+    return this.delegate.invokeAll(wrapAll(tasks), timeout, unit);
+  }
+
+  @Nonnull
+  @Override
+  public <T> T invokeAny(@Nonnull Collection<? extends Callable<T>> tasks)
+      throws InterruptedException, ExecutionException {
+    return this.delegate.invokeAny(wrapAll(tasks));
+  }
+
+  @Override
+  public <T> T invokeAny(
+      @Nonnull Collection<? extends Callable<T>> tasks, long timeout, @Nonnull TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    return this.delegate.invokeAny(wrapAll(tasks), timeout, unit);
+  }
+
+  @Override
+  public void shutdown() {
+    this.delegate.shutdown();
+  }
+
+  @Nonnull
+  @Override
+  public List<Runnable> shutdownNow() {
+    return this.delegate.shutdownNow();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return this.delegate.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return this.delegate.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit)
+      throws InterruptedException {
+    return this.delegate.awaitTermination(timeout, unit);
+  }
+
+  private static <T> List<Callable<T>> wrapAll(Collection<? extends Callable<T>> tasks) {
+    Context context = Context.current();
+    return tasks.stream().map(context::wrap).collect(Collectors.toList());
+  }
+}
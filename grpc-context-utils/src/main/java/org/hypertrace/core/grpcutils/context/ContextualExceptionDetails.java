@@ -36,19 +36,32 @@ public class ContextualExceptionDetails {
     this(null);
   }
 
-  Metadata toMetadata() {
-    Metadata metadata = new Metadata();
-    this.getExternalMessage().ifPresent(value -> metadata.put(EXTERNAL_MESSAGE_KEY, value));
-    this.getRequestContext().map(RequestContext::buildTrailers).ifPresent(metadata::merge);
-    return metadata;
+  void addTo(Metadata metadata) {
+    if (this.externalMessage != null) {
+      metadata.put(EXTERNAL_MESSAGE_KEY, this.externalMessage);
+    }
+    if (this.requestContext != null) {
+      this.requestContext.addTrailersTo(metadata);
+    }
   }
 
   ContextualExceptionDetails withExternalMessage(@Nullable String externalMessage) {
     return new ContextualExceptionDetails(this.getRequestContext().orElse(null), externalMessage);
   }
 
+  /**
+   * Reads the details carried by the provided trailers, if they include a request id. The request
+   * id is looked up directly first, so no context is built for metadata without one. The returned
+   * context is a lazy view, only decoding the headers that are read from it.
+   */
   public static Optional<ContextualExceptionDetails> fromMetadata(Metadata metadata) {
-    RequestContext requestContext = RequestContext.fromMetadata(metadata);
+    PropagatedHeaderMatcher matcher = PropagatedHeaderMatcher.getDefault();
+    if (!metadata.containsKey(RequestContextConstants.REQUEST_ID_METADATA_KEY)
+        && !(matcher.isPackedRequestContextAccepted()
+            && metadata.containsKey(PackedRequestContext.METADATA_KEY))) {
+      return Optional.empty();
+    }
+    RequestContext requestContext = RequestContext.lazilyFromMetadata(metadata, matcher);
     if (requestContext.getRequestId().isEmpty()) {
       return Optional.empty();
     }
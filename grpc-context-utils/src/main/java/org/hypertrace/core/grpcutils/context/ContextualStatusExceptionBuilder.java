@@ -4,7 +4,6 @@ import io.grpc.Metadata;
 import io.grpc.Status;
 import io.grpc.StatusException;
 import io.grpc.StatusRuntimeException;
-import java.util.Optional;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import lombok.AccessLevel;
@@ -22,21 +21,28 @@ public class ContextualStatusExceptionBuilder {
   @Nonnull private final Status status;
   @Nullable private final Metadata originalTrailers;
   @Nonnull ContextualExceptionDetails details;
+  // A build option rather than part of the exception, so kept out of the generated members
+  @Getter(AccessLevel.NONE)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private boolean fillInStackTrace;
 
   public static ContextualStatusExceptionBuilder from(Status status, RequestContext context) {
     return new ContextualStatusExceptionBuilder(
-        status, null, new ContextualExceptionDetails(context));
+        status, null, new ContextualExceptionDetails(context), true);
   }
 
   public static ContextualStatusExceptionBuilder from(Status status) {
-    return new ContextualStatusExceptionBuilder(status, null, new ContextualExceptionDetails());
+    return new ContextualStatusExceptionBuilder(
+        status, null, new ContextualExceptionDetails(), true);
   }
 
   public static ContextualStatusExceptionBuilder from(StatusException statusException) {
     return new ContextualStatusExceptionBuilder(
         statusException.getStatus(),
         statusException.getTrailers(),
-        new ContextualExceptionDetails());
+        new ContextualExceptionDetails(),
+        true);
   }
 
   public static ContextualStatusExceptionBuilder from(
@@ -44,7 +50,8 @@ public class ContextualStatusExceptionBuilder {
     return new ContextualStatusExceptionBuilder(
         statusRuntimeException.getStatus(),
         statusRuntimeException.getTrailers(),
-        new ContextualExceptionDetails());
+        new ContextualExceptionDetails(),
+        true);
   }
 
   public ContextualStatusExceptionBuilder useStatusDescriptionAsExternalMessage() {
@@ -57,18 +64,63 @@ public class ContextualStatusExceptionBuilder {
     return this;
   }
 
+  /**
+   * Builds exceptions without a stack trace. Capturing the stack is most of the cost of creating an
+   * exception, and is of little use for expected failures such as NOT_FOUND or RESOURCE_EXHAUSTED
+   * that are reported to the caller rather than investigated.
+   */
+  public ContextualStatusExceptionBuilder withoutStackTrace() {
+    this.fillInStackTrace = false;
+    return this;
+  }
+
   public StatusRuntimeException buildRuntimeException() {
-    return status.asRuntimeException(this.collectMetadata());
+    Metadata trailers = this.collectMetadata();
+    return this.fillInStackTrace
+        ? status.asRuntimeException(trailers)
+        : new StacklessStatusRuntimeException(status, trailers);
   }
 
   public StatusException buildCheckedException() {
-    return status.asException(this.collectMetadata());
+    Metadata trailers = this.collectMetadata();
+    return this.fillInStackTrace
+        ? status.asException(trailers)
+        : new StacklessStatusException(status, trailers);
   }
 
   private Metadata collectMetadata() {
+    // Everything is written into a single instance rather than merging intermediate ones
     Metadata metadataCollector = new Metadata();
-    Optional.ofNullable(this.originalTrailers).ifPresent(metadataCollector::merge);
-    metadataCollector.merge(this.details.toMetadata());
+    if (this.originalTrailers != null) {
+      metadataCollector.merge(this.originalTrailers);
+    }
+    this.details.addTo(metadataCollector);
     return metadataCollector;
   }
+
+  private static final class StacklessStatusRuntimeException extends StatusRuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private StacklessStatusRuntimeException(Status status, Metadata trailers) {
+      super(status, trailers);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+
+  private static final class StacklessStatusException extends StatusException {
+    private static final long serialVersionUID = 1L;
+
+    private StacklessStatusException(Status status, Metadata trailers) {
+      super(status, trailers);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+  }
 }
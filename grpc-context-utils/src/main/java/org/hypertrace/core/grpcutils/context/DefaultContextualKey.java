@@ -1,22 +1,44 @@
 package org.hypertrace.core.grpcutils.context;
 
-import com.google.common.collect.ImmutableListMultimap;
-import com.google.common.collect.Multimap;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+/**
+ * The cacheable headers are captured as a flat array of alternating names and values, sorted by
+ * name with the values of each name in their original order, so equal keys have identical arrays.
+ * The hash is computed once on construction and compared before anything else, making mismatched
+ * lookups cheap. The data must not be modified once the key is built.
+ */
 class DefaultContextualKey<T> implements ContextualKey<T> {
+  private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
   private final RequestContext context;
   private final T data;
-  private final Multimap<String, String> cacheableContextHeaders;
+  private final String[] cacheableContextHeaders;
+  private final long hash;
 
   DefaultContextualKey(RequestContext context, T data, Collection<String> cacheableHeaderNames) {
+    this(context, data, sortHeaderNames(cacheableHeaderNames));
+  }
+
+  /** Builds a key from header names already sorted with {@link #sortHeaderNames(Collection)}. */
+  DefaultContextualKey(RequestContext context, T data, String[] sortedCacheableHeaderNames) {
     this.context = context;
     this.data = data;
-    this.cacheableContextHeaders = this.extractCacheableHeaders(context, cacheableHeaderNames);
+    this.cacheableContextHeaders =
+        this.extractCacheableHeaders(context, sortedCacheableHeaderNames);
+    this.hash = computeHash(data, this.cacheableContextHeaders);
+  }
+
+  static String[] sortHeaderNames(Collection<String> headerNames) {
+    String[] sortedHeaderNames = headerNames.stream().distinct().toArray(String[]::new);
+    Arrays.sort(sortedHeaderNames);
+    return sortedHeaderNames;
   }
 
   @Override
@@ -54,13 +76,14 @@ class DefaultContextualKey<T> implements ContextualKey<T> {
     if (this == o) return true;
     if (o == null || getClass() != o.getClass()) return false;
     DefaultContextualKey<?> that = (DefaultContextualKey<?>) o;
-    return Objects.equals(getData(), that.getData())
-        && cacheableContextHeaders.equals(that.cacheableContextHeaders);
+    return hash == that.hash
+        && Arrays.equals(cacheableContextHeaders, that.cacheableContextHeaders)
+        && Objects.equals(getData(), that.getData());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(getData(), cacheableContextHeaders);
+    return Long.hashCode(hash);
   }
 
   @Override
@@ -69,16 +92,53 @@ class DefaultContextualKey<T> implements ContextualKey<T> {
         + "data="
         + data
         + ", cacheableContextHeaders="
-        + cacheableContextHeaders
+        + cacheableContextHeadersToString()
         + '}';
   }
 
-  private Multimap<String, String> extractCacheableHeaders(
-      RequestContext requestContext, Collection<String> cacheableHeaderNames) {
-    return cacheableHeaderNames.stream()
-        .collect(
-            ImmutableListMultimap.flatteningToImmutableListMultimap(
-                Function.identity(),
-                headerName -> requestContext.getAllHeaderValues(headerName).stream()));
+  private String[] extractCacheableHeaders(
+      RequestContext requestContext, String[] sortedCacheableHeaderNames) {
+    String[] nameValuePairs = new String[2 * sortedCacheableHeaderNames.length];
+    int length = 0;
+    for (String headerName : sortedCacheableHeaderNames) {
+      List<String> values = requestContext.getAllHeaderValues(headerName);
+      int requiredLength = length + 2 * values.size();
+      if (requiredLength > nameValuePairs.length) {
+        nameValuePairs =
+            Arrays.copyOf(nameValuePairs, Math.max(2 * nameValuePairs.length, requiredLength));
+      }
+      for (String value : values) {
+        nameValuePairs[length++] = headerName;
+        nameValuePairs[length++] = value;
+      }
+    }
+    return length == nameValuePairs.length ? nameValuePairs : Arrays.copyOf(nameValuePairs, length);
+  }
+
+  private static long computeHash(Object data, String[] cacheableContextHeaders) {
+    long hash = Objects.hashCode(data);
+    for (String nameOrValue : cacheableContextHeaders) {
+      hash = hash * HASH_MULTIPLIER + nameOrValue.hashCode();
+    }
+    return hash;
+  }
+
+  private String cacheableContextHeadersToString() {
+    StringBuilder builder = new StringBuilder("{");
+    for (int i = 0; i < cacheableContextHeaders.length; i += 2) {
+      if (i == 0 || !cacheableContextHeaders[i].equals(cacheableContextHeaders[i - 2])) {
+        if (i > 0) {
+          builder.append("], ");
+        }
+        builder.append(cacheableContextHeaders[i]).append("=[");
+      } else {
+        builder.append(", ");
+      }
+      builder.append(cacheableContextHeaders[i + 1]);
+    }
+    if (cacheableContextHeaders.length > 0) {
+      builder.append(']');
+    }
+    return builder.append('}').toString();
   }
 }
@@ -0,0 +1,20 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static java.util.Objects.requireNonNull;
+
+import javax.annotation.Nonnull;
+
+/** Holds the process wide default of {@link RequestIdGenerator}, as an interface cannot. */
+final class DefaultRequestIdGenerator {
+  private static volatile RequestIdGenerator generator = UuidRequestIdGenerator.RANDOM;
+
+  private DefaultRequestIdGenerator() {}
+
+  static RequestIdGenerator get() {
+    return generator;
+  }
+
+  static void set(@Nonnull RequestIdGenerator generator) {
+    DefaultRequestIdGenerator.generator = requireNonNull(generator);
+  }
+}
@@ -0,0 +1,75 @@
+package org.hypertrace.core.grpcutils.context;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+
+/**
+ * Normalizes header names to lowercase. Well known names always normalize to the same instance, so
+ * normalizing them allocates nothing and they compare equal by identity. Other names come from
+ * inbound requests, so they are lowercased on each call rather than remembered.
+ */
+final class HeaderNames {
+  static final List<String> WELL_KNOWN_NAMES =
+      List.of(
+          RequestContextConstants.TENANT_ID_HEADER_KEY,
+          RequestContextConstants.REQUEST_ID_HEADER_KEY,
+          RequestContextConstants.CONTEXT_ID_HEADER_KEY,
+          RequestContextConstants.SUPPRESS_USER_TRACKING_HEADER_KEY,
+          RequestContextConstants.AUTHORIZATION_HEADER,
+          RequestContextConstants.PACKED_REQUEST_CONTEXT_HEADER_KEY,
+          "traceparent",
+          "tracestate",
+          "grpc-trace-bin",
+          "x-b3-traceid",
+          "x-b3-spanid",
+          "x-b3-parentspanid",
+          "x-b3-sampled",
+          "x-b3-flags");
+
+  private static final Map<String, String> CANONICAL_NAMES =
+      WELL_KNOWN_NAMES.stream()
+          .collect(Collectors.toUnmodifiableMap(Function.identity(), Function.identity()));
+
+  private HeaderNames() {}
+
+  static String normalize(@Nonnull String name) {
+    String canonicalName = CANONICAL_NAMES.get(name);
+    if (canonicalName != null) {
+      return canonicalName;
+    }
+    String normalizedName = toLowerCase(name);
+    canonicalName = CANONICAL_NAMES.get(normalizedName);
+    return canonicalName == null ? normalizedName : canonicalName;
+  }
+
+  /**
+   * Lowercases ASCII names without regard to the default locale, returning the same instance if
+   * already lowercase. Any other name is lowercased as {@link String#toLowerCase()} would.
+   */
+  private static String toLowerCase(String name) {
+    int firstUppercase = -1;
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (c >= 0x80) {
+        return name.toLowerCase();
+      }
+      if (firstUppercase < 0 && c >= 'A' && c <= 'Z') {
+        firstUppercase = i;
+      }
+    }
+    if (firstUppercase < 0) {
+      return name;
+    }
+    char[] chars = name.toCharArray();
+    for (int i = firstUppercase; i < chars.length; i++) {
+      char c = chars[i];
+      if (c >= 'A' && c <= 'Z') {
+        chars[i] = (char) (c + ('a' - 'A'));
+      }
+    }
+    return new String(chars);
+  }
+}
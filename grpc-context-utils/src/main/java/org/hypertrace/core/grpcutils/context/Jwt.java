@@ -3,6 +3,9 @@ package org.hypertrace.core.grpcutils.context;
 import java.util.Optional;
 
 interface Jwt {
+  /** The time at which the token expires, or {@link Long#MAX_VALUE} if it does not. */
+  long getExpiryEpochMillis();
+
   Optional<String> getUserId();
 
   Optional<String> getName();
@@ -0,0 +1,9 @@
+package org.hypertrace.core.grpcutils.context;
+
+/** Determines when a decoded JWT is dropped from the parser cache. */
+public enum JwtCacheExpiryPolicy {
+  /** Entries expire once the configured duration passes without the token being read. */
+  AFTER_ACCESS,
+  /** Entries expire once the configured duration passes after the token was first decoded. */
+  AFTER_WRITE
+}
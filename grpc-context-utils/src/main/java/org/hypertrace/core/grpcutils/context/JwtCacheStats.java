@@ -0,0 +1,40 @@
+package org.hypertrace.core.grpcutils.context;
+
+import lombok.Value;
+
+/** A point in time snapshot of the statistics of the JWT parser cache. */
+@Value
+public class JwtCacheStats {
+  long hitCount;
+  long missCount;
+  long loadSuccessCount;
+  long loadFailureCount;
+  long totalLoadTimeNanos;
+  long evictionCount;
+  long estimatedSize;
+
+  /**
+   * The number of tokens that failed to decode or verify. Failures are held apart from the main
+   * cache, and counted even if statistics are not recorded.
+   */
+  long failedTokenCount;
+
+  /** The number of requests rejected because their token had recently failed. */
+  long failedTokenHitCount;
+
+  public long getRequestCount() {
+    return this.hitCount + this.missCount;
+  }
+
+  /** Ratio of requests served from the cache, or 1 if there have been no requests. */
+  public double getHitRate() {
+    long requestCount = this.getRequestCount();
+    return requestCount == 0 ? 1.0 : (double) this.hitCount / requestCount;
+  }
+
+  /** Average time spent decoding a token that was not in the cache. */
+  public double getAverageLoadPenaltyNanos() {
+    long loadCount = this.loadSuccessCount + this.loadFailureCount;
+    return loadCount == 0 ? 0.0 : (double) this.totalLoadTimeNanos / loadCount;
+  }
+}
@@ -21,4 +21,24 @@ public interface JwtClaim {
    * @return An Optional containing the converted value if conversion succeeds
    */
   <T> Optional<T> as(Class<T> tClazz);
+
+  /**
+   * Returns true if this claim is a list containing any of the provided roles or permissions. This
+   * is a bitwise comparison for claims listed in {@link JwtParserConfig#getPrecomputedClaims()}.
+   */
+  default boolean containsAny(JwtRoleSet roles) {
+    return this.asList(String.class)
+        .map(values -> values.stream().anyMatch(roles.getNames()::contains))
+        .orElse(false);
+  }
+
+  /**
+   * Returns true if this claim is a list containing all of the provided roles or permissions. This
+   * is a bitwise comparison for claims listed in {@link JwtParserConfig#getPrecomputedClaims()}.
+   */
+  default boolean containsAll(JwtRoleSet roles) {
+    return this.asList(String.class)
+        .map(values -> values.containsAll(roles.getNames()))
+        .orElse(roles.getNames().isEmpty());
+  }
 }
@@ -1,16 +1,33 @@
 package org.hypertrace.core.grpcutils.context;
 
 import com.auth0.jwt.JWT;
-import com.auth0.jwt.exceptions.JWTDecodeException;
-import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,8 +35,50 @@ class JwtParser {
   private static final Logger LOG = LoggerFactory.getLogger(JwtParser.class);
   private static final String BEARER_TOKEN_PREFIX = "Bearer ";
 
-  private final Cache<String, Optional<Jwt>> jwtCache =
-      CacheBuilder.newBuilder().maximumSize(1000).expireAfterAccess(1, TimeUnit.HOURS).build();
+  private final StatsCounter statsCounter;
+  private final Cache<TokenDigest, Jwt> jwtCache;
+  private final Cache<TokenDigest, Boolean> failedTokenCache;
+  private final LongAdder failedTokenCount = new LongAdder();
+  private final LongAdder failedTokenHitCount = new LongAdder();
+  private final long failureLogIntervalMillis;
+  private final AtomicLong nextFailureLogMillis = new AtomicLong();
+  private volatile long failedTokenCountAtLastLog;
+  private final Set<String> precomputedClaims;
+  private final Clock clock;
+  private final boolean rejectExpiredTokens;
+  private final long expiredTokenLeewayMillis;
+  @Nullable private final JwtSignatureVerifier signatureVerifier;
+
+  JwtParser() {
+    this(JwtParserConfig.DEFAULT);
+  }
+
+  JwtParser(JwtParserConfig config) {
+    this(config, Clock.systemUTC());
+  }
+
+  JwtParser(JwtParserConfig config, Clock clock) {
+    this.clock = clock;
+    this.rejectExpiredTokens = config.isRejectExpiredTokens();
+    this.expiredTokenLeewayMillis = config.getExpiredTokenLeeway().toMillis();
+    this.precomputedClaims = Set.copyOf(config.getPrecomputedClaims());
+    this.signatureVerifier =
+        config.getVerificationKeyProvider() == null
+            ? null
+            : new JwtSignatureVerifier(
+                config.getVerificationKeyProvider(), config.getVerificationKeyCacheExpiry());
+    // Hits, misses and evictions are recorded by the cache, loads by the parser
+    this.statsCounter =
+        config.isRecordStats() ? new ConcurrentStatsCounter() : StatsCounter.disabledStatsCounter();
+    this.jwtCache = this.buildCache(config);
+    // Kept apart from the main cache, so a flood of bad tokens cannot displace good ones
+    this.failedTokenCache =
+        Caffeine.newBuilder()
+            .maximumSize(config.getMaximumFailedTokenCacheSize())
+            .expireAfterWrite(config.getFailedTokenCacheExpiry())
+            .build();
+    this.failureLogIntervalMillis = config.getFailureLogInterval().toMillis();
+  }
 
   Optional<Jwt> fromAuthHeader(String authHeaderValue) {
     if (authHeaderValue.startsWith(BEARER_TOKEN_PREFIX)) {
@@ -29,92 +88,462 @@ class JwtParser {
   }
 
   Optional<Jwt> fromJwt(String jwtValue) {
-    try {
-      return this.jwtCache.get(jwtValue, () -> this.decode(jwtValue));
-    } catch (ExecutionException e) {
-      LOG.warn("Exception loading jwt from cache", e);
+    TokenDigest digest = TokenDigest.of(jwtValue);
+    Jwt jwt = this.jwtCache.getIfPresent(digest);
+    if (jwt == null) {
+      // Loaded outside the cache, as verification may fetch keys and computing an entry blocks
+      // other callers. Concurrent requests for a new token may each decode it.
+      long loadStartNanos = System.nanoTime();
+      jwt = this.load(digest, jwtValue);
+      long loadNanos = System.nanoTime() - loadStartNanos;
+      if (jwt == null) {
+        this.statsCounter.recordLoadFailure(loadNanos);
+      } else {
+        this.statsCounter.recordLoadSuccess(loadNanos);
+        this.jwtCache.put(digest, jwt);
+      }
+    }
+    if (jwt == null || !this.isLive(jwt)) {
       return Optional.empty();
     }
+    return Optional.of(jwt);
+  }
+
+  /**
+   * Returns false if the token has expired, allowing for the configured leeway, and expired tokens
+   * are being rejected.
+   */
+  boolean isLive(Jwt jwt) {
+    return this.millisUntilRejected(jwt) > 0;
   }
 
-  private Optional<Jwt> decode(String jwtString) {
+  JwtCacheStats getCacheStats() {
+    CacheStats stats = this.jwtCache.stats();
+    return new JwtCacheStats(
+        stats.hitCount(),
+        stats.missCount(),
+        stats.loadSuccessCount(),
+        stats.loadFailureCount(),
+        stats.totalLoadTime(),
+        stats.evictionCount(),
+        this.jwtCache.estimatedSize(),
+        this.failedTokenCount.sum(),
+        this.failedTokenHitCount.sum());
+  }
+
+  private Cache<TokenDigest, Jwt> buildCache(JwtParserConfig config) {
+    // Caffeine's size eviction is frequency aware, so one off tokens do not displace hot ones.
+    // Expiry is tracked per entry on a timer wheel, with the scheduler removing entries promptly
+    // once their token expires rather than waiting for them to be evicted by size.
+    Caffeine<TokenDigest, Jwt> cacheBuilder =
+        Caffeine.newBuilder()
+            .maximumSize(config.getMaximumCacheSize())
+            .scheduler(Scheduler.systemScheduler())
+            .expireAfter(
+                new TokenExpiry(
+                    config.getCacheExpiry().toNanos(),
+                    config.getCacheExpiryPolicy() == JwtCacheExpiryPolicy.AFTER_ACCESS));
+    if (config.isRecordStats()) {
+      cacheBuilder.recordStats(() -> this.statsCounter);
+    }
+    return cacheBuilder.build();
+  }
+
+  /**
+   * Returns the time until the token is no longer accepted, which is its expiry plus the configured
+   * leeway, or Long.MAX_VALUE if it never expires or expired tokens are accepted.
+   */
+  private long millisUntilRejected(Jwt jwt) {
+    long expiryEpochMillis = jwt.getExpiryEpochMillis();
+    if (!this.rejectExpiredTokens || expiryEpochMillis == Long.MAX_VALUE) {
+      return Long.MAX_VALUE;
+    }
+    return expiryEpochMillis + this.expiredTokenLeewayMillis - this.clock.millis();
+  }
+
+  /**
+   * Expires each entry at the earlier of the time the token is no longer accepted and the
+   * configured maximum, which is measured from creation or from the last read depending on the
+   * configured policy.
+   */
+  private final class TokenExpiry implements Expiry<TokenDigest, Jwt> {
+    private final long maximumNanos;
+    private final boolean extendOnRead;
+
+    private TokenExpiry(long maximumNanos, boolean extendOnRead) {
+      this.maximumNanos = maximumNanos;
+      this.extendOnRead = extendOnRead;
+    }
+
+    @Override
+    public long expireAfterCreate(TokenDigest key, Jwt value, long currentTime) {
+      long millisUntilRejected = millisUntilRejected(value);
+      if (millisUntilRejected >= TimeUnit.NANOSECONDS.toMillis(this.maximumNanos)) {
+        return this.maximumNanos;
+      }
+      return Math.max(0, TimeUnit.MILLISECONDS.toNanos(millisUntilRejected));
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        TokenDigest key, Jwt value, long currentTime, long currentDuration) {
+      return this.expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        TokenDigest key, Jwt value, long currentTime, long currentDuration) {
+      return this.extendOnRead ? this.expireAfterCreate(key, value, currentTime) : currentDuration;
+    }
+  }
+
+  @Nullable
+  private Jwt load(TokenDigest digest, String jwtString) {
+    if (this.failedTokenCache.getIfPresent(digest) != null) {
+      this.failedTokenHitCount.increment();
+      return null;
+    }
     try {
       DecodedJWT jwt = JWT.decode(jwtString);
-      return Optional.of(new DefaultJwt(jwt));
+      if (this.signatureVerifier != null) {
+        this.signatureVerifier.verify(jwt);
+      }
+      return DefaultJwt.extract(jwt, this.precomputedClaims);
     } catch (Throwable t) {
-      LOG.warn("Failed to verify JWT", t);
-      return Optional.empty();
+      this.failedTokenCache.put(digest, Boolean.TRUE);
+      this.failedTokenCount.increment();
+      this.logFailure(t);
+      return null;
+    }
+  }
+
+  /**
+   * Logs at most one failure per interval, with the number of failures since the last one logged,
+   * as bad tokens can arrive at the full request rate.
+   */
+  private void logFailure(Throwable t) {
+    long nowMillis = this.clock.millis();
+    long nextLogMillis = this.nextFailureLogMillis.get();
+    if (nowMillis < nextLogMillis
+        || !this.nextFailureLogMillis.compareAndSet(
+            nextLogMillis, nowMillis + this.failureLogIntervalMillis)) {
+      LOG.debug("Failed to verify JWT", t);
+      return;
+    }
+    long failureCount = this.failedTokenCount.sum();
+    long failuresSinceLastLog = failureCount - this.failedTokenCountAtLastLog;
+    this.failedTokenCountAtLastLog = failureCount;
+    LOG.warn("Failed to verify JWT, {} failure(s) since last logged", failuresSinceLastLog, t);
+  }
+
+  /**
+   * 128 bit digest of a token. Caching by digest rather than by the token avoids retaining every
+   * token, typically a kilobyte or more, and keeps hashing and comparing keys cheap.
+   */
+  /**
+   * The SHA-256 digest of a token, which keys the caches in place of the token itself. Cached
+   * claims are shared by every request presenting a token with the same key, so keys must not be
+   * made to collide, even for unverified tokens, as a colliding token would be served, or could
+   * plant, the claims cached for another user's token.
+   */
+  private static final class TokenDigest {
+    private static final HashFunction HASH_FUNCTION = Hashing.sha256();
+
+    private final long first;
+    private final long second;
+    private final long third;
+    private final long fourth;
+
+    private TokenDigest(long first, long second, long third, long fourth) {
+      this.first = first;
+      this.second = second;
+      this.third = third;
+      this.fourth = fourth;
+    }
+
+    private static TokenDigest of(String token) {
+      ByteBuffer hash = ByteBuffer.wrap(HASH_FUNCTION.hashUnencodedChars(token).asBytes());
+      return new TokenDigest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof TokenDigest)) {
+        return false;
+      }
+      TokenDigest that = (TokenDigest) o;
+      return this.first == that.first
+          && this.second == that.second
+          && this.third == that.third
+          && this.fourth == that.fourth;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(this.first);
     }
   }
 
+  /**
+   * Immutable snapshot of the claims of a decoded token. Claim values are converted to plain Java
+   * objects when the token is decoded, and neither the encoded token nor its JSON tree is retained.
+   */
   private static final class DefaultJwt implements Jwt {
-    private final DecodedJWT jwt;
     private static final String SUBJECT_CLAIM = "sub";
     private static final String NAME_CLAIM = "name";
     private static final String PICTURE_CLAIM = "picture";
     private static final String EMAIL_CLAIM = "email";
 
-    private DefaultJwt(DecodedJWT jwt) {
-      this.jwt = jwt;
+    private final long expiryEpochMillis;
+    private final Map<String, JwtClaim> claims;
+    @Nullable private final String userId;
+    @Nullable private final String name;
+    @Nullable private final String pictureUrl;
+    @Nullable private final String email;
+
+    private DefaultJwt(long expiryEpochMillis, Map<String, JwtClaim> claims) {
+      this.expiryEpochMillis = expiryEpochMillis;
+      this.claims = claims;
+      this.userId = this.getStringClaim(SUBJECT_CLAIM);
+      this.name = this.getStringClaim(NAME_CLAIM);
+      this.pictureUrl = this.getStringClaim(PICTURE_CLAIM);
+      this.email = this.getStringClaim(EMAIL_CLAIM);
+    }
+
+    private static DefaultJwt extract(DecodedJWT jwt, Set<String> precomputedClaims) {
+      Map<String, JwtClaim> claims = new HashMap<>();
+      jwt.getClaims()
+          .forEach(
+              (claimName, claim) -> {
+                Object value = claim.isNull() || claim.isMissing() ? null : claim.as(Object.class);
+                if (value == null) {
+                  return;
+                }
+                DefaultJwtClaim jwtClaim = new DefaultJwtClaim(toPlainValue(value));
+                claims.put(
+                    claimName,
+                    precomputedClaims.contains(claimName)
+                        ? new PrecomputedJwtClaim(jwtClaim)
+                        : jwtClaim);
+              });
+      Date expiresAt = jwt.getExpiresAt();
+      return new DefaultJwt(
+          expiresAt == null ? Long.MAX_VALUE : expiresAt.getTime(), Map.copyOf(claims));
+    }
+
+    /**
+     * Returns the provided JSON value with integral numbers widened to longs and with unmodifiable
+     * lists and maps.
+     */
+    @Nullable
+    private static Object toPlainValue(@Nullable Object value) {
+      if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+        return ((Number) value).longValue();
+      }
+      if (value instanceof List) {
+        List<?> list = (List<?>) value;
+        List<Object> plainList = new ArrayList<>(list.size());
+        list.forEach(element -> plainList.add(toPlainValue(element)));
+        return Collections.unmodifiableList(plainList);
+      }
+      if (value instanceof Map) {
+        Map<?, ?> map = (Map<?, ?>) value;
+        Map<Object, Object> plainMap = new LinkedHashMap<>();
+        map.forEach((key, element) -> plainMap.put(key, toPlainValue(element)));
+        return Collections.unmodifiableMap(plainMap);
+      }
+      return value;
+    }
+
+    @Override
+    public long getExpiryEpochMillis() {
+      return this.expiryEpochMillis;
     }
 
     @Override
     public Optional<String> getUserId() {
-      return this.getClaim(SUBJECT_CLAIM).flatMap(claim -> claim.as(String.class));
+      return Optional.ofNullable(this.userId);
     }
 
     @Override
     public Optional<String> getName() {
-      return this.getClaim(NAME_CLAIM).flatMap(claim -> claim.as(String.class));
+      return Optional.ofNullable(this.name);
     }
 
     @Override
     public Optional<String> getPictureUrl() {
-      return this.getClaim(PICTURE_CLAIM).flatMap(claim -> claim.as(String.class));
+      return Optional.ofNullable(this.pictureUrl);
     }
 
     @Override
     public Optional<String> getEmail() {
-      return this.getClaim(EMAIL_CLAIM).flatMap(claim -> claim.as(String.class));
+      return Optional.ofNullable(this.email);
     }
 
     @Override
     public Optional<JwtClaim> getClaim(String claimName) {
-      return Optional.of(jwt.getClaim(claimName))
-          .filter(Predicate.not(Claim::isNull))
-          .filter(Predicate.not(Claim::isMissing))
-          .map(DefaultJwtClaim::new);
+      return Optional.ofNullable(this.claims.get(claimName));
+    }
+
+    @Nullable
+    private String getStringClaim(String claimName) {
+      JwtClaim claim = this.claims.get(claimName);
+      return claim == null ? null : claim.as(String.class).orElse(null);
     }
 
     @Override
     public String toString() {
-      return jwt.getClaims().toString();
+      return this.claims.toString();
     }
   }
 
+  /**
+   * Claim holding a plain value: a string, boolean, long, double, or an unmodifiable list or map of
+   * these. Reads of the held type return it directly, and conversions to other types are made from
+   * the plain value on each read.
+   */
   private static class DefaultJwtClaim implements JwtClaim {
-    private final Claim claim;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
-    private DefaultJwtClaim(Claim claim) {
-      this.claim = claim;
+    private final Object value;
+
+    private DefaultJwtClaim(Object value) {
+      this.value = value;
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <T> Optional<List<T>> asList(Class<T> tClazz) {
+      if (!(this.value instanceof List)) {
+        return Optional.empty();
+      }
+      List<?> values = (List<?>) this.value;
+      if (allInstancesOf(values, tClazz)) {
+        return Optional.of((List<T>) values);
+      }
       try {
-        return Optional.ofNullable(claim.asList(tClazz)).map(List::copyOf);
+        List<T> convertedValues = new ArrayList<>(values.size());
+        for (Object element : values) {
+          convertedValues.add(convert(element, tClazz));
+        }
+        return Optional.of(List.copyOf(convertedValues));
       } catch (Exception e) {
         return Optional.empty();
       }
     }
 
     @Override
-    public <T> Optional<T> as(Class<T> tClazz) throws JWTDecodeException {
+    public <T> Optional<T> as(Class<T> tClazz) {
       try {
-        return Optional.ofNullable(claim.as(tClazz));
+        return Optional.ofNullable(convert(this.value, tClazz));
       } catch (Exception e) {
         return Optional.empty();
       }
     }
+
+    private static boolean allInstancesOf(List<?> values, Class<?> tClazz) {
+      for (int i = 0; i < values.size(); i++) {
+        if (!tClazz.isInstance(values.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Nullable
+    private static <T> T convert(@Nullable Object value, Class<T> tClazz) {
+      if (value == null || tClazz.isInstance(value)) {
+        return tClazz.cast(value);
+      }
+      return OBJECT_MAPPER.convertValue(value, tClazz);
+    }
+
+    @Override
+    public String toString() {
+      try {
+        return OBJECT_MAPPER.writeValueAsString(this.value);
+      } catch (JsonProcessingException e) {
+        return String.valueOf(this.value);
+      }
+    }
+  }
+
+  /**
+   * Claim, such as roles or permissions, whose string list value is also held as a bitset of a
+   * {@link JwtRoleRegistry}, so role checks are bitwise comparisons.
+   */
+  private static final class PrecomputedJwtClaim implements JwtClaim {
+    private final JwtClaim claim;
+    // Null if the claim is not a list of strings, in which case it holds no roles
+    @Nullable private final List<String> stringListValue;
+    @Nullable private volatile RoleBits roleBits;
+
+    private PrecomputedJwtClaim(JwtClaim claim) {
+      this.claim = claim;
+      this.stringListValue = claim.asList(String.class).orElse(null);
+    }
+
+    @Override
+    public boolean containsAny(JwtRoleSet roles) {
+      return roles.intersects(this.getRoleBits(roles.getRegistry()));
+    }
+
+    @Override
+    public boolean containsAll(JwtRoleSet roles) {
+      return roles.isSubsetOf(this.getRoleBits(roles.getRegistry()));
+    }
+
+    private long[] getRoleBits(JwtRoleRegistry registry) {
+      // Registering a name can only add bits, so the bitset is rebuilt whenever the registry grows
+      int registrySize = registry.size();
+      RoleBits currentRoleBits = this.roleBits;
+      if (currentRoleBits == null
+          || currentRoleBits.registry != registry
+          || currentRoleBits.registrySize != registrySize) {
+        currentRoleBits =
+            new RoleBits(
+                registry,
+                registrySize,
+                registry.toBits(
+                    this.stringListValue == null ? List.of() : this.stringListValue,
+                    registrySize));
+        this.roleBits = currentRoleBits;
+      }
+      return currentRoleBits.bits;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<List<T>> asList(Class<T> tClazz) {
+      if (tClazz == String.class) {
+        return Optional.ofNullable((List<T>) this.stringListValue);
+      }
+      return this.claim.asList(tClazz);
+    }
+
+    @Override
+    public <T> Optional<T> as(Class<T> tClazz) {
+      return this.claim.as(tClazz);
+    }
+
+    @Override
+    public String toString() {
+      return this.claim.toString();
+    }
+  }
+
+  private static final class RoleBits {
+    private final JwtRoleRegistry registry;
+    private final int registrySize;
+    private final long[] bits;
+
+    private RoleBits(JwtRoleRegistry registry, int registrySize, long[] bits) {
+      this.registry = registry;
+      this.registrySize = registrySize;
+      this.bits = bits;
+    }
   }
 }
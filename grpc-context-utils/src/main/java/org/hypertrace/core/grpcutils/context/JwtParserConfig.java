@@ -0,0 +1,77 @@
+package org.hypertrace.core.grpcutils.context;
+
+import java.time.Duration;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+/**
+ * Configuration for decoding JWTs from the authorization header of a {@link RequestContext}. Apply
+ * with {@link RequestContext#configureJwtParser(JwtParserConfig)}.
+ *
+ * <p>The cache uses a frequency aware admission policy, so a burst of tokens seen only once does
+ * not evict frequently used tokens even when the cache is full.
+ *
+ * <p>By default tokens are only decoded. Setting a {@link #verificationKeyProvider} enables
+ * signature verification, where each token is verified once when first seen and the verified
+ * result is cached until the token expires. Tokens that fail verification have no claims.
+ */
+@Value
+@Builder(toBuilder = true)
+public class JwtParserConfig {
+  public static final JwtParserConfig DEFAULT = JwtParserConfig.builder().build();
+
+  /** The maximum number of decoded tokens to cache. */
+  @Builder.Default long maximumCacheSize = 1000;
+
+  /**
+   * The longest a decoded token is cached. When {@link #rejectExpiredTokens} is set, tokens are
+   * also never cached beyond their own {@code exp} claim, plus any leeway.
+   */
+  @Nonnull @Builder.Default Duration cacheExpiry = Duration.ofHours(1);
+
+  @Nonnull @Builder.Default
+  JwtCacheExpiryPolicy cacheExpiryPolicy = JwtCacheExpiryPolicy.AFTER_ACCESS;
+
+  /**
+   * Whether claims of tokens past their {@code exp} claim are ignored. Off by default, as claims of
+   * expired tokens have always been returned and callers may rely on that.
+   */
+  @Builder.Default boolean rejectExpiredTokens = false;
+
+  /** Allowance for clock skew when deciding if a token has expired. */
+  @Nonnull @Builder.Default Duration expiredTokenLeeway = Duration.ZERO;
+
+  /**
+   * The maximum number of tokens that failed to decode or verify to remember, so that they are
+   * rejected without being decoded again. These are held apart from the main cache.
+   */
+  @Builder.Default long maximumFailedTokenCacheSize = 100;
+
+  /** How long a token that failed to decode or verify is remembered. */
+  @Nonnull @Builder.Default Duration failedTokenCacheExpiry = Duration.ofMinutes(1);
+
+  /**
+   * The shortest interval between failures logged at warn level. Other failures are counted, see
+   * {@link JwtCacheStats#getFailedTokenCount()}, and logged at debug level.
+   */
+  @Nonnull @Builder.Default Duration failureLogInterval = Duration.ofMinutes(1);
+
+  /** Whether hit, miss, load and eviction statistics are recorded, see {@link JwtCacheStats}. */
+  @Builder.Default boolean recordStats = true;
+
+  /**
+   * Claims, such as roles or permissions, whose string list values are also held as a bitset, so
+   * that {@link JwtClaim#containsAny} and {@link JwtClaim#containsAll} are bitwise comparisons.
+   */
+  @Singular Set<String> precomputedClaims;
+
+  /** Source of the keys used to verify token signatures, or null to skip verification. */
+  @Nullable JwtVerificationKeyProvider verificationKeyProvider;
+
+  /** How long a verification key is cached before it is requested from the provider again. */
+  @Nonnull @Builder.Default Duration verificationKeyCacheExpiry = Duration.ofMinutes(10);
+}
@@ -0,0 +1,70 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+
+/**
+ * Interns role and permission names into dense ids, so that sets of them can be represented and
+ * compared as bitsets. Build the {@link JwtRoleSet}s used by authorization checks once, at startup,
+ * with {@link #compile(Collection)}.
+ *
+ * <p>Names found in tokens are never registered, only looked up, so untrusted tokens cannot grow
+ * the registry.
+ */
+public final class JwtRoleRegistry {
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+  private volatile int size;
+
+  /** Returns the id of the provided name, registering it if not already known. */
+  public synchronized int register(@Nonnull String name) {
+    Integer existingId = this.ids.get(requireNonNull(name));
+    if (existingId != null) {
+      return existingId;
+    }
+    int id = this.size;
+    this.ids.put(name, id);
+    this.size = id + 1;
+    return id;
+  }
+
+  /** Registers each of the provided names and returns them as a set for authorization checks. */
+  public JwtRoleSet compile(@Nonnull Collection<String> names) {
+    long[] bits = new long[0];
+    for (String name : names) {
+      int id = this.register(name);
+      int word = id >>> 6;
+      if (word >= bits.length) {
+        long[] grown = new long[word + 1];
+        System.arraycopy(bits, 0, grown, 0, bits.length);
+        bits = grown;
+      }
+      bits[word] |= 1L << id;
+    }
+    return new JwtRoleSet(this, bits, names);
+  }
+
+  /** The number of registered names, which grows each time a name is registered. */
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the bitset of the registered names among those provided, which is valid for as long as
+   * the size of the registry is the provided size. Unregistered names are ignored.
+   */
+  long[] toBits(Collection<String> names, int registrySize) {
+    long[] bits = new long[(registrySize + 63) >>> 6];
+    for (String name : names) {
+      Integer id = this.ids.get(name);
+      // Ids registered after the size was read are beyond the bitset, and handled by the caller
+      if (id != null && id < registrySize) {
+        bits[id >>> 6] |= 1L << id;
+      }
+    }
+    return bits;
+  }
+}
@@ -0,0 +1,57 @@
+package org.hypertrace.core.grpcutils.context;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Precompiled set of roles or permissions, tested against a claim with {@link
+ * JwtClaim#containsAny(JwtRoleSet)} and {@link JwtClaim#containsAll(JwtRoleSet)}. Instances are
+ * built by {@link JwtRoleRegistry#compile(Collection)}.
+ */
+public final class JwtRoleSet {
+  private final JwtRoleRegistry registry;
+  private final long[] bits;
+  private final Set<String> names;
+
+  JwtRoleSet(JwtRoleRegistry registry, long[] bits, Collection<String> names) {
+    this.registry = registry;
+    this.bits = bits;
+    this.names = Set.copyOf(names);
+  }
+
+  /** The names in this set. */
+  public Set<String> getNames() {
+    return this.names;
+  }
+
+  JwtRoleRegistry getRegistry() {
+    return this.registry;
+  }
+
+  /** Returns true if any name in this set is also in the provided bitset. */
+  boolean intersects(long[] otherBits) {
+    int words = Math.min(this.bits.length, otherBits.length);
+    for (int i = 0; i < words; i++) {
+      if ((this.bits[i] & otherBits[i]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns true if every name in this set is also in the provided bitset. */
+  boolean isSubsetOf(long[] otherBits) {
+    for (int i = 0; i < this.bits.length; i++) {
+      long otherWord = i < otherBits.length ? otherBits[i] : 0;
+      if ((this.bits[i] & ~otherWord) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "JwtRoleSet" + this.names;
+  }
+}
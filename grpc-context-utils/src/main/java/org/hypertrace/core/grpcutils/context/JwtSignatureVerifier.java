@@ -0,0 +1,110 @@
+package org.hypertrace.core.grpcutils.context;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import javax.annotation.Nullable;
+
+/**
+ * Verifies JWT signatures against keys from a {@link JwtVerificationKeyProvider}. Keys are cached
+ * by id, so a provider is only consulted for a key id not seen recently. Key ids the provider does
+ * not know are remembered for a shorter time, so that tokens with made up key ids are rejected
+ * without consulting it again. Only asymmetric algorithms are accepted.
+ */
+class JwtSignatureVerifier {
+  private static final int MAXIMUM_CACHED_KEYS = 100;
+  private static final int MAXIMUM_CACHED_MISSING_KEYS = 1000;
+  private static final Duration MAXIMUM_MISSING_KEY_EXPIRY = Duration.ofMinutes(1);
+
+  private final JwtVerificationKeyProvider keyProvider;
+  private final Cache<String, PublicKey> keyCache;
+  private final Cache<String, Boolean> missingKeyCache;
+
+  JwtSignatureVerifier(JwtVerificationKeyProvider keyProvider, Duration keyCacheExpiry) {
+    this.keyProvider = keyProvider;
+    this.keyCache =
+        Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_CACHED_KEYS)
+            .expireAfterWrite(keyCacheExpiry)
+            .build();
+    // Kept apart from the key cache, so a flood of unknown key ids cannot displace known keys.
+    // Rotated keys may be requested before they are published, so misses are held briefly.
+    this.missingKeyCache =
+        Caffeine.newBuilder()
+            .maximumSize(MAXIMUM_CACHED_MISSING_KEYS)
+            .expireAfterWrite(
+                keyCacheExpiry.compareTo(MAXIMUM_MISSING_KEY_EXPIRY) < 0
+                    ? keyCacheExpiry
+                    : MAXIMUM_MISSING_KEY_EXPIRY)
+            .build();
+  }
+
+  /** Throws a {@link JWTVerificationException} if the token is not signed by a known key. */
+  void verify(DecodedJWT jwt) {
+    String keyId = jwt.getKeyId();
+    if (keyId == null) {
+      throw new JWTVerificationException("JWT has no key id");
+    }
+    PublicKey publicKey = this.keyCache.get(keyId, this::loadKey);
+    if (publicKey == null) {
+      throw new JWTVerificationException("No key found for key id " + keyId);
+    }
+    buildAlgorithm(jwt.getAlgorithm(), publicKey).verify(jwt);
+  }
+
+  @Nullable
+  private PublicKey loadKey(String keyId) {
+    if (this.missingKeyCache.getIfPresent(keyId) != null) {
+      return null;
+    }
+    PublicKey publicKey;
+    try {
+      publicKey = this.keyProvider.getPublicKey(keyId).orElse(null);
+    } catch (Exception e) {
+      throw new JWTVerificationException("Failed to load key with id " + keyId, e);
+    }
+    if (publicKey == null) {
+      this.missingKeyCache.put(keyId, Boolean.TRUE);
+    }
+    return publicKey;
+  }
+
+  private static Algorithm buildAlgorithm(String algorithmName, PublicKey publicKey) {
+    switch (algorithmName) {
+      case "RS256":
+        return Algorithm.RSA256(asRsaKey(publicKey), null);
+      case "RS384":
+        return Algorithm.RSA384(asRsaKey(publicKey), null);
+      case "RS512":
+        return Algorithm.RSA512(asRsaKey(publicKey), null);
+      case "ES256":
+        return Algorithm.ECDSA256(asEcKey(publicKey), null);
+      case "ES384":
+        return Algorithm.ECDSA384(asEcKey(publicKey), null);
+      case "ES512":
+        return Algorithm.ECDSA512(asEcKey(publicKey), null);
+      default:
+        throw new JWTVerificationException("Unsupported JWT algorithm " + algorithmName);
+    }
+  }
+
+  private static RSAPublicKey asRsaKey(PublicKey publicKey) {
+    if (publicKey instanceof RSAPublicKey) {
+      return (RSAPublicKey) publicKey;
+    }
+    throw new JWTVerificationException("Expected an RSA key but found " + publicKey.getAlgorithm());
+  }
+
+  private static ECPublicKey asEcKey(PublicKey publicKey) {
+    if (publicKey instanceof ECPublicKey) {
+      return (ECPublicKey) publicKey;
+    }
+    throw new JWTVerificationException("Expected an EC key but found " + publicKey.getAlgorithm());
+  }
+}
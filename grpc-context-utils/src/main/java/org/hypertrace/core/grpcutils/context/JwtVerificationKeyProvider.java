@@ -0,0 +1,58 @@
+package org.hypertrace.core.grpcutils.context;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkProvider;
+import com.auth0.jwk.JwkProviderBuilder;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.security.PublicKey;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Source of the public keys used to verify JWT signatures, looked up by the {@code kid} header of
+ * the token. Keys returned, and briefly key ids not found, are cached by the parser, so
+ * implementations need not cache themselves. Implement directly to provide keys in process.
+ */
+@FunctionalInterface
+public interface JwtVerificationKeyProvider {
+  /**
+   * Returns the public key with the provided id, or empty if there is none. Exceptions are treated
+   * as a failure to verify the token being parsed.
+   */
+  Optional<PublicKey> getPublicKey(String keyId) throws Exception;
+
+  /**
+   * Reads keys from the JSON Web Key Set served at the provided URL. Keys found are held for ten
+   * minutes, and the set is fetched at most ten times in a burst and once a minute after that, so
+   * tokens with unknown key ids cannot cause a fetch per request. Lookups beyond that limit fail.
+   */
+  static JwtVerificationKeyProvider fromJwksUrl(URL jwksUrl) {
+    JwkProvider jwkProvider =
+        new JwkProviderBuilder(jwksUrl)
+            .cached(100, 10, TimeUnit.MINUTES)
+            .rateLimited(10, 1, TimeUnit.MINUTES)
+            .build();
+    return keyId -> {
+      Jwk jwk;
+      try {
+        jwk = jwkProvider.get(keyId);
+      } catch (SigningKeyNotFoundException e) {
+        return Optional.empty();
+      }
+      return Optional.of(jwk.getPublicKey());
+    };
+  }
+
+  /** Reads keys from a local JSON Web Key Set file. */
+  static JwtVerificationKeyProvider fromJwksFile(Path jwksFile) {
+    try {
+      return fromJwksUrl(jwksFile.toUri().toURL());
+    } catch (MalformedURLException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package org.hypertrace.core.grpcutils.context;
+
+import io.grpc.Metadata;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Read only view of the propagated headers in a {@link Metadata} instance. Each header is decoded
+ * the first time it is requested and remembered, so the cost scales with the headers actually read
+ * rather than with the size of the metadata. The full set can be decoded into {@link
+ * RequestContextHeaders} on demand.
+ *
+ * <p>The view is taken over a shallow copy of the provided metadata, so later changes to it are not
+ * observed. Headers added to the view are kept apart from the metadata and follow its headers.
+ */
+final class LazyMetadataHeaders {
+  // Marks a header that was looked up but is not present, so the miss is remembered too
+  private static final String ABSENT = new String("");
+
+  private final Metadata metadata;
+  private final PropagatedHeaderMatcher propagatedHeaderMatcher;
+  // Headers put since the view was created, which are never filtered by the matcher
+  private final RequestContextHeaders addedHeaders;
+  private String[] decodedNames = new String[4];
+  private String[] decodedValues = new String[4];
+  private int decodedCount;
+  // Headers of the packed request context header, decoded on first use
+  @Nullable private RequestContextHeaders packedHeaders;
+
+  LazyMetadataHeaders(Metadata metadata, PropagatedHeaderMatcher propagatedHeaderMatcher) {
+    this(snapshot(metadata), propagatedHeaderMatcher, RequestContextHeaders.EMPTY, null);
+  }
+
+  private LazyMetadataHeaders(
+      Metadata metadata,
+      PropagatedHeaderMatcher propagatedHeaderMatcher,
+      RequestContextHeaders addedHeaders,
+      @Nullable RequestContextHeaders packedHeaders) {
+    this.metadata = metadata;
+    this.propagatedHeaderMatcher = propagatedHeaderMatcher;
+    this.addedHeaders = addedHeaders;
+    this.packedHeaders = packedHeaders;
+  }
+
+  /** Decodes every propagated header in the provided metadata. */
+  static RequestContextHeaders decodeAll(
+      Metadata metadata, PropagatedHeaderMatcher propagatedHeaderMatcher) {
+    RequestContextHeaders.Builder headersBuilder = RequestContextHeaders.builder();
+
+    // Go over all the headers and copy the allowed headers
+    for (String name : metadata.keys()) {
+      if (!propagatedHeaderMatcher.matches(name) || isPackedRequestContextHeader(name)) {
+        continue;
+      }
+      String value = decodeValue(metadata, name);
+      // The value could be null or empty for some keys so validate that.
+      if (value != null && !value.isEmpty()) {
+        headersBuilder.add(name, RequestContext.normalizeHeaderName(name), value);
+      }
+    }
+    // Individually sent headers take precedence over those packed into a single header
+    byte[] packed =
+        propagatedHeaderMatcher.isPackedRequestContextAccepted()
+            ? metadata.get(PackedRequestContext.METADATA_KEY)
+            : null;
+    if (packed != null) {
+      PackedRequestContext.decodeInto(packed, propagatedHeaderMatcher, headersBuilder);
+    }
+    return headersBuilder.build();
+  }
+
+  /**
+   * Returns the value of the header with the provided normalized name, or null if it is absent or
+   * not propagated.
+   */
+  @Nullable
+  String firstValue(String normalizedName) {
+    String value = this.metadataValue(normalizedName);
+    return value == null ? this.addedHeaders.firstValue(normalizedName) : value;
+  }
+
+  List<String> allValues(String normalizedName) {
+    // Like the eagerly decoded form, only a single value is read for each header name
+    String value = this.metadataValue(normalizedName);
+    List<String> addedValues = this.addedHeaders.allValues(normalizedName);
+    if (value == null) {
+      return addedValues;
+    }
+    if (addedValues.isEmpty()) {
+      return Collections.singletonList(value);
+    }
+    List<String> values = new ArrayList<>(addedValues.size() + 1);
+    values.add(value);
+    values.addAll(addedValues);
+    return Collections.unmodifiableList(values);
+  }
+
+  /**
+   * Returns a view with the provided header added after those of the metadata, leaving this view
+   * unchanged as it may be shared by copies of a context.
+   */
+  synchronized LazyMetadataHeaders with(
+      String name, String normalizedName, @Nullable String value) {
+    return new LazyMetadataHeaders(
+        this.metadata,
+        this.propagatedHeaderMatcher,
+        this.addedHeaders.with(name, normalizedName, value),
+        this.packedHeaders);
+  }
+
+  RequestContextHeaders materialize() {
+    RequestContextHeaders headers = decodeAll(this.metadata, this.propagatedHeaderMatcher);
+    for (int i = 0; i < this.addedHeaders.size(); i++) {
+      headers =
+          headers.with(
+              this.addedHeaders.nameAt(i),
+              this.addedHeaders.normalizedNameAt(i),
+              this.addedHeaders.valueAt(i));
+    }
+    return headers;
+  }
+
+  @Nullable
+  private synchronized String metadataValue(String normalizedName) {
+    for (int i = 0; i < this.decodedCount; i++) {
+      String decodedName = this.decodedNames[i];
+      if (normalizedName == decodedName || normalizedName.equals(decodedName)) {
+        String value = this.decodedValues[i];
+        return value == ABSENT ? null : value;
+      }
+    }
+    String value = this.decode(normalizedName);
+    this.remember(normalizedName, value == null ? ABSENT : value);
+    return value;
+  }
+
+  @Nullable
+  private String decode(String normalizedName) {
+    if (!this.propagatedHeaderMatcher.matches(normalizedName)
+        || isPackedRequestContextHeader(normalizedName)) {
+      return null;
+    }
+    String value =
+        isValidMetadataKey(normalizedName) ? decodeValue(this.metadata, normalizedName) : null;
+    if (value == null || value.isEmpty()) {
+      return this.getPackedHeaders().firstValue(normalizedName);
+    }
+    return value;
+  }
+
+  private RequestContextHeaders getPackedHeaders() {
+    if (this.packedHeaders == null) {
+      byte[] packed =
+          this.propagatedHeaderMatcher.isPackedRequestContextAccepted()
+              ? this.metadata.get(PackedRequestContext.METADATA_KEY)
+              : null;
+      RequestContextHeaders decoded = packed == null ? null : PackedRequestContext.decode(packed);
+      this.packedHeaders = decoded == null ? RequestContextHeaders.EMPTY : decoded;
+    }
+    return this.packedHeaders;
+  }
+
+  private static boolean isPackedRequestContextHeader(String name) {
+    return RequestContextConstants.PACKED_REQUEST_CONTEXT_HEADER_KEY.equalsIgnoreCase(name);
+  }
+
+  private void remember(String normalizedName, String value) {
+    if (this.decodedCount == this.decodedNames.length) {
+      this.decodedNames = Arrays.copyOf(this.decodedNames, this.decodedCount * 2);
+      this.decodedValues = Arrays.copyOf(this.decodedValues, this.decodedCount * 2);
+    }
+    this.decodedNames[this.decodedCount] = normalizedName;
+    this.decodedValues[this.decodedCount] = value;
+    this.decodedCount++;
+  }
+
+  /**
+   * Copies the entries of the provided metadata without decoding them, so the view is unaffected
+   * by later changes made by other interceptors or the handler.
+   */
+  private static Metadata snapshot(Metadata metadata) {
+    Metadata snapshot = new Metadata();
+    snapshot.merge(metadata);
+    return snapshot;
+  }
+
+  @Nullable
+  private static String decodeValue(Metadata metadata, String name) {
+    if (MetadataKeys.isBinaryHeader(name)) {
+      byte[] bytes = metadata.get(MetadataKeys.binaryKey(name));
+      return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+    return metadata.get(MetadataKeys.asciiKey(name));
+  }
+
+  /**
+   * Metadata keys are restricted to lowercase alphanumerics, '-', '_' and '.'. Any other name can
+   * never be present, and would be rejected by {@link Metadata.Key#of}.
+   */
+  private static boolean isValidMetadataKey(String normalizedName) {
+    if (normalizedName.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < normalizedName.length(); i++) {
+      char c = normalizedName.charAt(i);
+      if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '.')) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,70 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
+import static io.grpc.Metadata.BINARY_BYTE_MARSHALLER;
+
+import io.grpc.Metadata;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+
+/**
+ * Shared registry of {@link Metadata.Key} instances for header names. Building a key lowercases and
+ * validates its name, so reusing keys avoids that work, and the allocation, each time a header is
+ * read or written. Only keys for well known names are held, as other names can come from inbound
+ * requests; keys for any others are built on each call.
+ */
+public final class MetadataKeys {
+  private static final Map<String, Metadata.Key<String>> ASCII_KEYS;
+  private static final Map<String, Metadata.Key<byte[]>> BINARY_KEYS;
+
+  static {
+    Map<String, Metadata.Key<String>> asciiKeys = new HashMap<>();
+    Map<String, Metadata.Key<byte[]>> binaryKeys = new HashMap<>();
+    for (String name : HeaderNames.WELL_KNOWN_NAMES) {
+      if (isBinaryHeader(name)) {
+        binaryKeys.put(name, Metadata.Key.of(name, BINARY_BYTE_MARSHALLER));
+      } else {
+        asciiKeys.put(name, Metadata.Key.of(name, ASCII_STRING_MARSHALLER));
+      }
+    }
+    ASCII_KEYS = Map.copyOf(asciiKeys);
+    BINARY_KEYS = Map.copyOf(binaryKeys);
+  }
+
+  private MetadataKeys() {}
+
+  /** Returns the key for an ASCII header. Throws if the name is not a valid ASCII header name. */
+  public static Metadata.Key<String> asciiKey(@Nonnull String name) {
+    return getOrCreate(
+        ASCII_KEYS, name, keyName -> Metadata.Key.of(keyName, ASCII_STRING_MARSHALLER));
+  }
+
+  /**
+   * Returns the key for a binary header, whose name must end with {@link
+   * Metadata#BINARY_HEADER_SUFFIX}.
+   */
+  public static Metadata.Key<byte[]> binaryKey(@Nonnull String name) {
+    return getOrCreate(
+        BINARY_KEYS, name, keyName -> Metadata.Key.of(keyName, BINARY_BYTE_MARSHALLER));
+  }
+
+  /**
+   * Returns true if the header name ends with {@link Metadata#BINARY_HEADER_SUFFIX}, ignoring case,
+   * without lowercasing the name.
+   */
+  public static boolean isBinaryHeader(@Nonnull String name) {
+    int suffixLength = Metadata.BINARY_HEADER_SUFFIX.length();
+    return name.regionMatches(
+        true, name.length() - suffixLength, Metadata.BINARY_HEADER_SUFFIX, 0, suffixLength);
+  }
+
+  private static <T> Metadata.Key<T> getOrCreate(
+      Map<String, Metadata.Key<T>> keys,
+      String name,
+      Function<String, Metadata.Key<T>> keyFactory) {
+    Metadata.Key<T> key = keys.get(HeaderNames.normalize(name));
+    return key == null ? keyFactory.apply(name) : key;
+  }
+}
@@ -0,0 +1,295 @@
+package org.hypertrace.core.grpcutils.context;
+
+import io.grpc.Metadata;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Compact binary form of the headers of a {@link RequestContext}, propagated as the single {@link
+ * RequestContextConstants#PACKED_REQUEST_CONTEXT_HEADER_KEY} header rather than one header per
+ * entry. It is only decoded by receivers that opt in with {@link
+ * PropagatedHeaderMatcher#withPackedRequestContext()}, alongside any individual headers, which take
+ * precedence, so receivers must opt in before senders do.
+ *
+ * <p>The format is a version byte followed by the entries. Each entry is a varint tag, either the
+ * index of a well known header name in a static dictionary or the length of a literal name that
+ * follows, then the varint length of the value and the value itself. Names and values are UTF-8.
+ * The dictionary belongs to the version and must never change; new names require a new version.
+ *
+ * <p>Tracing instrumentation, proxies, gateways and tenant routing read, strip or validate some
+ * headers off the wire, so only those accepted by {@link #isPackable(String)} are packed, with the
+ * others still sent individually. Receivers drop any other names found in a packed header, so it
+ * cannot be used to get a tenant id or token past the checks applied to individual headers.
+ *
+ * <p>Packing trades HPACK indexing for fewer headers. The packed value changes whenever any of its
+ * entries does, such as the request id on every call, so it is never indexed and is sent in full,
+ * base64 encoded, on every hop. Large values that are stable across calls, such as the
+ * authorization token, are cheaper sent individually, where HPACK indexes them after the first
+ * call, so they are never packed. Packing pays off for many small per request values.
+ */
+public final class PackedRequestContext {
+  public static final Metadata.Key<byte[]> METADATA_KEY =
+      MetadataKeys.binaryKey(RequestContextConstants.PACKED_REQUEST_CONTEXT_HEADER_KEY);
+
+  private static final byte VERSION = 1;
+  private static final String[] DICTIONARY = {
+    RequestContextConstants.TENANT_ID_HEADER_KEY,
+    RequestContextConstants.REQUEST_ID_HEADER_KEY,
+    RequestContextConstants.AUTHORIZATION_HEADER,
+    RequestContextConstants.CONTEXT_ID_HEADER_KEY,
+    RequestContextConstants.SUPPRESS_USER_TRACKING_HEADER_KEY,
+    "traceparent",
+    "tracestate",
+    "grpc-trace-bin",
+    "x-b3-traceid",
+    "x-b3-spanid",
+    "x-b3-parentspanid",
+    "x-b3-sampled",
+    "x-b3-flags"
+  };
+  private static final Map<String, Integer> DICTIONARY_INDEXES = buildDictionaryIndexes();
+  private static final String B3_HEADER_PREFIX = "x-b3-";
+  private static final Set<String> UNPACKABLE_HEADER_NAMES =
+      Set.of(
+          RequestContextConstants.TENANT_ID_HEADER_KEY,
+          RequestContextConstants.AUTHORIZATION_HEADER,
+          "traceparent",
+          "tracestate",
+          "grpc-trace-bin");
+
+  private PackedRequestContext() {}
+
+  /**
+   * Encodes the headers of the provided context that may be packed, see {@link
+   * #isPackable(String)}, with names lowercased as gRPC would. The others must be sent
+   * individually.
+   */
+  public static byte[] encode(@Nonnull RequestContext requestContext) {
+    return encode(requestContext, PackedRequestContext::isPackableNormalized);
+  }
+
+  /**
+   * Encodes the headers of the provided context whose lowercased names are accepted by the
+   * provided filter, regardless of whether they may be packed.
+   */
+  static byte[] encode(
+      @Nonnull RequestContext requestContext, @Nonnull Predicate<String> normalizedNameFilter) {
+    RequestContextHeaders headers = requestContext.materializedHeaders();
+    Encoder encoder = new Encoder(64 * (headers.size() + 1));
+    encoder.writeByte(VERSION);
+    for (int i = 0; i < headers.size(); i++) {
+      String value = headers.valueAt(i);
+      String normalizedName = headers.normalizedNameAt(i);
+      if (value == null || !normalizedNameFilter.test(normalizedName)) {
+        continue;
+      }
+      Integer dictionaryIndex = DICTIONARY_INDEXES.get(normalizedName);
+      if (dictionaryIndex == null) {
+        encoder.writeTaggedString(normalizedName, 0);
+      } else {
+        encoder.writeVarint((dictionaryIndex << 1) | 1);
+      }
+      encoder.writeTaggedString(value, -1);
+    }
+    return encoder.toByteArray();
+  }
+
+  /**
+   * Returns false for headers that must be sent individually, as they may be read off the wire by
+   * tracing instrumentation, proxies, gateways or tenant routing: the tenant id, the authorization
+   * token and the W3C, gRPC and B3 tracing headers. Header names are case insensitive.
+   */
+  public static boolean isPackable(@Nonnull String headerName) {
+    return isPackableNormalized(HeaderNames.normalize(headerName));
+  }
+
+  private static boolean isPackableNormalized(String normalizedName) {
+    return !UNPACKABLE_HEADER_NAMES.contains(normalizedName)
+        && !normalizedName.startsWith(B3_HEADER_PREFIX);
+  }
+
+  /**
+   * Decodes the entries of a packed header matched by the provided matcher, skipping any whose name
+   * was already added to the builder. Returns false, having added nothing, if the header is
+   * malformed or of an unknown version.
+   */
+  static boolean decodeInto(
+      byte[] packed,
+      PropagatedHeaderMatcher propagatedHeaderMatcher,
+      RequestContextHeaders.Builder headersBuilder) {
+    RequestContextHeaders decoded = decode(packed);
+    if (decoded == null) {
+      return false;
+    }
+    // Taken up front, so every value of a name repeated in the packed header is kept
+    Set<String> individualNames = headersBuilder.normalizedNames();
+    for (int i = 0; i < decoded.size(); i++) {
+      String normalizedName = decoded.normalizedNameAt(i);
+      if (propagatedHeaderMatcher.matches(normalizedName)
+          && !individualNames.contains(normalizedName)) {
+        headersBuilder.add(normalizedName, normalizedName, decoded.valueAt(i));
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Decodes a packed header in a single pass, or returns null if it is malformed. Entries that may
+   * not be packed are dropped.
+   */
+  @Nullable
+  static RequestContextHeaders decode(byte[] packed) {
+    if (packed.length == 0 || packed[0] != VERSION) {
+      return null;
+    }
+    RequestContextHeaders.Builder headersBuilder = RequestContextHeaders.builder();
+    Decoder decoder = new Decoder(packed);
+    while (decoder.hasRemaining()) {
+      int tag = decoder.readVarint();
+      String name;
+      if ((tag & 1) == 1) {
+        int dictionaryIndex = tag >>> 1;
+        if (dictionaryIndex >= DICTIONARY.length) {
+          return null;
+        }
+        name = DICTIONARY[dictionaryIndex];
+      } else {
+        name = decoder.readString(tag >>> 1);
+      }
+      String value = decoder.readString(decoder.readVarint());
+      if (name == null || value == null) {
+        return null;
+      }
+      // Empty values are dropped, as they are for individually sent headers
+      if (value.isEmpty()) {
+        continue;
+      }
+      String normalizedName = RequestContext.normalizeHeaderName(name);
+      if (isPackableNormalized(normalizedName)) {
+        headersBuilder.add(name, normalizedName, value);
+      }
+    }
+    return decoder.isMalformed() ? null : headersBuilder.build();
+  }
+
+  private static Map<String, Integer> buildDictionaryIndexes() {
+    Map<String, Integer> indexes = new HashMap<>();
+    for (int i = 0; i < DICTIONARY.length; i++) {
+      indexes.put(DICTIONARY[i], i);
+    }
+    return Map.copyOf(indexes);
+  }
+
+  private static final class Encoder {
+    private byte[] buffer;
+    private int position;
+
+    private Encoder(int initialCapacity) {
+      this.buffer = new byte[initialCapacity];
+    }
+
+    private void writeByte(int value) {
+      this.ensureCapacity(1);
+      this.buffer[this.position++] = (byte) value;
+    }
+
+    private void writeVarint(int value) {
+      this.ensureCapacity(5);
+      while ((value & ~0x7F) != 0) {
+        this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      this.buffer[this.position++] = (byte) value;
+    }
+
+    /**
+     * Writes the UTF-8 length of the string, shifted left by one with the provided low bit unless
+     * negative, followed by its UTF-8 bytes. ASCII strings are copied without an intermediate
+     * array.
+     */
+    private void writeTaggedString(String value, int lowBit) {
+      if (isAscii(value)) {
+        int length = value.length();
+        this.writeVarint(lowBit < 0 ? length : (length << 1) | lowBit);
+        this.ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+          this.buffer[this.position++] = (byte) value.charAt(i);
+        }
+      } else {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        this.writeVarint(lowBit < 0 ? bytes.length : (bytes.length << 1) | lowBit);
+        this.ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+        this.position += bytes.length;
+      }
+    }
+
+    private void ensureCapacity(int additional) {
+      if (this.position + additional > this.buffer.length) {
+        int requiredLength = this.position + additional;
+        this.buffer = Arrays.copyOf(this.buffer, Math.max(2 * this.buffer.length, requiredLength));
+      }
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(this.buffer, this.position);
+    }
+
+    private static boolean isAscii(String value) {
+      for (int i = 0; i < value.length(); i++) {
+        if (value.charAt(i) >= 0x80) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final class Decoder {
+    private final byte[] buffer;
+    private int position = 1;
+    private boolean malformed;
+
+    private Decoder(byte[] buffer) {
+      this.buffer = buffer;
+    }
+
+    private boolean hasRemaining() {
+      return !this.malformed && this.position < this.buffer.length;
+    }
+
+    private boolean isMalformed() {
+      return this.malformed;
+    }
+
+    private int readVarint() {
+      int result = 0;
+      for (int shift = 0; shift < 32 && this.position < this.buffer.length; shift += 7) {
+        byte next = this.buffer[this.position++];
+        result |= (next & 0x7F) << shift;
+        if (next >= 0) {
+          return result;
+        }
+      }
+      this.malformed = true;
+      return 0;
+    }
+
+    @Nullable
+    private String readString(int length) {
+      if (this.malformed || length < 0 || length > this.buffer.length - this.position) {
+        this.malformed = true;
+        return null;
+      }
+      String value = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+      this.position += length;
+      return value;
+    }
+  }
+}
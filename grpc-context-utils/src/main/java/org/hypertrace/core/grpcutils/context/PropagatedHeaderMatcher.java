@@ -0,0 +1,151 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+
+/**
+ * Case insensitive matcher deciding which header names are propagated as part of a {@link
+ * RequestContext}. Prefixes are lowercased and indexed by their first character once, on
+ * construction, so matching a header name requires no allocation.
+ *
+ * <p>A matcher also decides whether the {@link PackedRequestContext} header is decoded. Receivers
+ * must opt in with {@link #withPackedRequestContext()}, as proxies and gateways in front of a
+ * service only see the headers sent individually.
+ */
+public final class PropagatedHeaderMatcher {
+  private static final int ASCII_TABLE_SIZE = 128;
+  private static final String[] NO_PREFIXES = new String[0];
+
+  /** Matches the prefixes in {@link RequestContextConstants#HEADER_PREFIXES_TO_BE_PROPAGATED}. */
+  public static final PropagatedHeaderMatcher DEFAULT =
+      PropagatedHeaderMatcher.of(RequestContextConstants.HEADER_PREFIXES_TO_BE_PROPAGATED);
+
+  private static volatile PropagatedHeaderMatcher defaultMatcher = DEFAULT;
+
+  private final Set<String> prefixes;
+  // Prefixes keyed by their lowercased first character, if ASCII
+  private final String[][] prefixesByFirstChar;
+  // Prefixes with a non ASCII first character, or an empty prefix, checked for every name
+  private final String[] otherPrefixes;
+  private final boolean packedRequestContextAccepted;
+
+  private PropagatedHeaderMatcher(Set<String> prefixes, boolean packedRequestContextAccepted) {
+    this.prefixes = prefixes;
+    this.packedRequestContextAccepted = packedRequestContextAccepted;
+    List<List<String>> buckets = new ArrayList<>(ASCII_TABLE_SIZE);
+    for (int i = 0; i < ASCII_TABLE_SIZE; i++) {
+      buckets.add(new ArrayList<>());
+    }
+    List<String> other = new ArrayList<>();
+    for (String prefix : prefixes) {
+      if (!prefix.isEmpty() && prefix.charAt(0) < ASCII_TABLE_SIZE) {
+        buckets.get(prefix.charAt(0)).add(prefix);
+      } else {
+        other.add(prefix);
+      }
+    }
+    this.prefixesByFirstChar = new String[ASCII_TABLE_SIZE][];
+    for (int i = 0; i < ASCII_TABLE_SIZE; i++) {
+      List<String> bucket = buckets.get(i);
+      this.prefixesByFirstChar[i] = bucket.isEmpty() ? NO_PREFIXES : bucket.toArray(String[]::new);
+    }
+    this.otherPrefixes = other.toArray(String[]::new);
+  }
+
+  /**
+   * Builds a matcher for the provided header name prefixes, which are case insensitive. The packed
+   * request context header is not decoded.
+   */
+  public static PropagatedHeaderMatcher of(@Nonnull Collection<String> prefixes) {
+    return of(prefixes, false);
+  }
+
+  private static PropagatedHeaderMatcher of(
+      Collection<String> prefixes, boolean packedRequestContextAccepted) {
+    return new PropagatedHeaderMatcher(
+        prefixes.stream()
+            .map(prefix -> requireNonNull(prefix).toLowerCase(Locale.ROOT))
+            .collect(Collectors.toUnmodifiableSet()),
+        packedRequestContextAccepted);
+  }
+
+  /** The matcher used by {@link RequestContext#fromMetadata(io.grpc.Metadata)}. */
+  public static PropagatedHeaderMatcher getDefault() {
+    return defaultMatcher;
+  }
+
+  /**
+   * Replaces the matcher used by {@link RequestContext#fromMetadata(io.grpc.Metadata)}, allowing
+   * the set of propagated headers to be configured at runtime.
+   */
+  public static void setDefault(@Nonnull PropagatedHeaderMatcher matcher) {
+    defaultMatcher = requireNonNull(matcher);
+  }
+
+  /** Returns a new matcher that matches the prefixes of this matcher plus those provided. */
+  public PropagatedHeaderMatcher withAdditionalPrefixes(@Nonnull Collection<String> prefixes) {
+    List<String> combined = new ArrayList<>(this.prefixes);
+    combined.addAll(prefixes);
+    return PropagatedHeaderMatcher.of(combined, this.packedRequestContextAccepted);
+  }
+
+  /**
+   * Returns a new matcher with the same prefixes that also decodes the {@link PackedRequestContext}
+   * header. Only headers that may be packed, see {@link PackedRequestContext#isPackable(String)},
+   * are read from it, and headers sent individually take precedence.
+   */
+  public PropagatedHeaderMatcher withPackedRequestContext() {
+    return new PropagatedHeaderMatcher(this.prefixes, true);
+  }
+
+  /** Whether the {@link PackedRequestContext} header is decoded. */
+  public boolean isPackedRequestContextAccepted() {
+    return this.packedRequestContextAccepted;
+  }
+
+  /** The lowercased prefixes matched by this instance. */
+  public Set<String> getPrefixes() {
+    return this.prefixes;
+  }
+
+  /** Returns true if the header name starts with any of the prefixes, ignoring case. */
+  public boolean matches(@Nonnull String headerName) {
+    if (!headerName.isEmpty()) {
+      char firstChar = toLowerAscii(headerName.charAt(0));
+      if (firstChar < ASCII_TABLE_SIZE
+          && matchesAny(headerName, this.prefixesByFirstChar[firstChar])) {
+        return true;
+      }
+    }
+    return matchesAny(headerName, this.otherPrefixes);
+  }
+
+  private static boolean matchesAny(String headerName, String[] candidatePrefixes) {
+    for (String prefix : candidatePrefixes) {
+      if (headerName.regionMatches(true, 0, prefix, 0, prefix.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static char toLowerAscii(char c) {
+    return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+  }
+
+  @Override
+  public String toString() {
+    return "PropagatedHeaderMatcher{prefixes="
+        + this.prefixes
+        + ", packedRequestContextAccepted="
+        + this.packedRequestContextAccepted
+        + '}';
+  }
+}
@@ -1,43 +1,55 @@
 package org.hypertrace.core.grpcutils.context;
 
-import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
 import static java.util.Objects.requireNonNull;
 import static org.hypertrace.core.grpcutils.context.RequestContextConstants.CACHE_MEANINGFUL_HEADERS;
 import static org.hypertrace.core.grpcutils.context.RequestContextConstants.SUPPRESS_USER_TRACKING_HEADER_KEY;
 import static org.hypertrace.core.grpcutils.context.RequestContextConstants.TENANT_ID_HEADER_KEY;
 
-import com.google.common.collect.ListMultimap;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.MultimapBuilder;
-import com.google.common.collect.Multimaps;
 import io.grpc.Context;
 import io.grpc.Metadata;
-import io.grpc.Metadata.Key;
-import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
-import lombok.EqualsAndHashCode;
+import javax.annotation.Nullable;
 import lombok.Value;
 
 /**
  * Context of the GRPC request that should be carried and can made available to the services so that
  * the service can use them. We use this to propagate headers across services.
  */
-@EqualsAndHashCode
 public class RequestContext {
   public static final Context.Key<RequestContext> CURRENT = Context.key("request_context");
-  private static final JwtParser JWT_PARSER = new JwtParser();
+  private static final String[] USER_KEY_HEADER_NAMES =
+      DefaultContextualKey.sortHeaderNames(CACHE_MEANINGFUL_HEADERS);
+  private static final String[] INTERNAL_KEY_HEADER_NAMES =
+      DefaultContextualKey.sortHeaderNames(List.of(TENANT_ID_HEADER_KEY));
+  private static volatile JwtParser jwtParser = new JwtParser();
 
   public RequestContext() {}
 
   public RequestContext(RequestContext otherContext) {
-    this.headers.putAll(otherContext.headers);
+    // Header storage is immutable, so it can be shared until either context is modified
+    LazyMetadataHeaders otherMetadataView = otherContext.metadataView;
+    if (otherMetadataView != null) {
+      this.metadataView = otherMetadataView;
+    } else {
+      this.headers = otherContext.headers;
+    }
+    this.memoizedJwt = otherContext.memoizedJwt;
+  }
+
+  private RequestContext(RequestContextHeaders headers) {
+    this.headers = headers;
+  }
+
+  private RequestContext(LazyMetadataHeaders metadataView) {
+    this.metadataView = metadataView;
   }
 
   public static RequestContext forTenantId(String tenantId) {
@@ -45,7 +57,20 @@ public class RequestContext {
         .put(RequestContextConstants.TENANT_ID_HEADER_KEY, tenantId)
         .put(
             RequestContextConstants.REQUEST_ID_HEADER_KEY,
-            FastUUIDGenerator.randomUUID().toString());
+            RequestIdGenerator.getDefault().generate());
+  }
+
+  /**
+   * Replaces the parser used to decode JWTs from the authorization header of every request context,
+   * discarding any tokens cached by the previous parser.
+   */
+  public static void configureJwtParser(@Nonnull JwtParserConfig config) {
+    jwtParser = new JwtParser(requireNonNull(config));
+  }
+
+  /** Statistics of the cache used to decode JWTs, if enabled in the {@link JwtParserConfig}. */
+  public static JwtCacheStats getJwtCacheStats() {
+    return jwtParser.getCacheStats();
   }
 
   public static RequestContext withRequestId(String tenantId, String requestId) {
@@ -55,35 +80,57 @@ public class RequestContext {
   }
 
   public static RequestContext fromMetadata(Metadata metadata) {
-    RequestContext requestContext = new RequestContext();
-
-    // Go over all the headers and copy the allowed headers to the RequestContext.
-    metadata.keys().stream()
-        .filter(
-            k ->
-                RequestContextConstants.HEADER_PREFIXES_TO_BE_PROPAGATED.stream()
-                    .anyMatch(prefix -> k.toLowerCase().startsWith(prefix.toLowerCase())))
-        .forEach(
-            k -> {
-              String value;
-              // check if key ends with binary suffix
-              if (k.toLowerCase().endsWith(Metadata.BINARY_HEADER_SUFFIX)) {
-                byte[] bytes = metadata.get(Metadata.Key.of(k, Metadata.BINARY_BYTE_MARSHALLER));
-                value = new String(bytes, StandardCharsets.UTF_8);
-              } else {
-                value = metadata.get(Metadata.Key.of(k, Metadata.ASCII_STRING_MARSHALLER));
-              }
-              // The value could be null or empty for some keys so validate that.
-              if (value != null && !value.isEmpty()) {
-                requestContext.put(k, value);
-              }
-            });
-
-    return requestContext;
-  }
-
-  private final ListMultimap<String, RequestContextHeader> headers =
-      MultimapBuilder.linkedHashKeys().linkedListValues().build();
+    return fromMetadata(metadata, PropagatedHeaderMatcher.getDefault());
+  }
+
+  /**
+   * Builds a request context from the provided metadata, copying only the headers accepted by the
+   * provided matcher.
+   */
+  public static RequestContext fromMetadata(
+      Metadata metadata, PropagatedHeaderMatcher propagatedHeaderMatcher) {
+    return new RequestContext(LazyMetadataHeaders.decodeAll(metadata, propagatedHeaderMatcher));
+  }
+
+  /**
+   * Returns a request context backed by the provided metadata, which decodes each header only when
+   * it is first read. Like {@link #fromMetadata(Metadata)}, the context reflects the metadata as of
+   * this call, but the headers are only decoded into a copy if one is removed or all of them are
+   * requested.
+   */
+  public static RequestContext lazilyFromMetadata(Metadata metadata) {
+    return lazilyFromMetadata(metadata, PropagatedHeaderMatcher.getDefault());
+  }
+
+  /**
+   * A variant of {@link #lazilyFromMetadata(Metadata)} that only exposes headers accepted by the
+   * provided matcher.
+   */
+  public static RequestContext lazilyFromMetadata(
+      Metadata metadata, PropagatedHeaderMatcher propagatedHeaderMatcher) {
+    return new RequestContext(new LazyMetadataHeaders(metadata, propagatedHeaderMatcher));
+  }
+
+  /**
+   * Headers are held in an immutable structure which is replaced on each modification, so
+   * concurrent readers always observe a consistent snapshot.
+   */
+  private volatile RequestContextHeaders headers = RequestContextHeaders.EMPTY;
+
+  /**
+   * Set while this context is a lazy view over inbound metadata, in which case it takes precedence
+   * over {@link #headers}. Cleared once the view has been materialized into {@link #headers}.
+   */
+  @Nullable private volatile LazyMetadataHeaders metadataView;
+
+  /**
+   * The JWT decoded from the authorization header, alongside the header value it was decoded from
+   * so that a changed header is detected without any invalidation.
+   */
+  @Nullable private volatile MemoizedJwt memoizedJwt;
+
+  /** Values memoized for this request, created on first use. Never shared with copies. */
+  @Nullable private volatile RequestMemo memo;
 
   /** Reads tenant id from this RequestContext based on the tenant id http header and returns it. */
   public Optional<String> getTenantId() {
@@ -114,7 +161,27 @@ public class RequestContext {
   }
 
   public Optional<JwtClaim> getClaim(String claimName) {
-    return getJwt().flatMap(jwt -> jwt.getClaim(claimName));
+    // Avoids allocating a capturing lambda, as claims are read on every authorization decision
+    Optional<Jwt> jwt = getJwt();
+    return jwt.isPresent() ? jwt.get().getClaim(claimName) : Optional.empty();
+  }
+
+  /**
+   * Returns true if the named claim lists any of the provided roles or permissions. List the claim
+   * in {@link JwtParserConfig#getPrecomputedClaims()} to make this a bitwise comparison.
+   */
+  public boolean hasAnyRole(String rolesClaim, JwtRoleSet roles) {
+    Optional<JwtClaim> claim = getClaim(rolesClaim);
+    return claim.isPresent() && claim.get().containsAny(roles);
+  }
+
+  /**
+   * Returns true if the named claim lists all of the provided roles or permissions. List the claim
+   * in {@link JwtParserConfig#getPrecomputedClaims()} to make this a bitwise comparison.
+   */
+  public boolean hasAllRoles(String rolesClaim, JwtRoleSet roles) {
+    Optional<JwtClaim> claim = getClaim(rolesClaim);
+    return claim.isPresent() && claim.get().containsAll(roles);
   }
 
   public Optional<String> getRequestId() {
@@ -137,8 +204,22 @@ public class RequestContext {
   }
 
   private Optional<Jwt> getJwt() {
-    return this.getHeaderValue(RequestContextConstants.AUTHORIZATION_HEADER)
-        .flatMap(JWT_PARSER::fromAuthHeader);
+    String authHeaderValue = this.firstHeaderValue(RequestContextConstants.AUTHORIZATION_HEADER);
+    if (authHeaderValue == null) {
+      return Optional.empty();
+    }
+    MemoizedJwt currentMemoizedJwt = this.memoizedJwt;
+    // Header values are never copied once stored, so identity tells us if the header has changed
+    JwtParser currentJwtParser = jwtParser;
+    if (currentMemoizedJwt != null
+        && currentMemoizedJwt.authHeaderValue == authHeaderValue
+        && (currentMemoizedJwt.jwt.isEmpty()
+            || currentJwtParser.isLive(currentMemoizedJwt.jwt.get()))) {
+      return currentMemoizedJwt.jwt;
+    }
+    Optional<Jwt> jwt = currentJwtParser.fromAuthHeader(authHeaderValue);
+    this.memoizedJwt = new MemoizedJwt(authHeaderValue, jwt);
+    return jwt;
   }
 
   /**
@@ -176,11 +257,10 @@ public class RequestContext {
    */
   @Deprecated
   public Map<String, String> getAll() {
-    return this.getHeaderNames().stream()
-        .flatMap(key -> this.headers.get(key).stream().findFirst().stream())
-        .collect(
-            Collectors.toUnmodifiableMap(
-                RequestContextHeader::getName, RequestContextHeader::getValue));
+    RequestContextHeaders currentHeaders = this.materializedHeaders();
+    return currentHeaders.names().stream()
+        .map(currentHeaders::indexOf)
+        .collect(Collectors.toUnmodifiableMap(currentHeaders::nameAt, currentHeaders::valueAt));
   }
 
   /**
@@ -188,16 +268,25 @@ public class RequestContext {
    * current instance is returned.
    */
   public RequestContext put(String headerName, String headerValue) {
-    this.headers.put(
-        this.normalizeHeaderName(requireNonNull(headerName)),
-        new RequestContextHeader(headerName, headerValue));
+    String normalizedName = normalizeHeaderName(requireNonNull(headerName));
+    if (this.metadataView != null) {
+      synchronized (this) {
+        LazyMetadataHeaders currentMetadataView = this.metadataView;
+        if (currentMetadataView != null) {
+          // Added headers are kept alongside the view, so the metadata is still decoded lazily
+          this.metadataView = currentMetadataView.with(headerName, normalizedName, headerValue);
+          return this;
+        }
+      }
+    }
+    this.headers = this.materializedHeaders().with(headerName, normalizedName, headerValue);
     return this;
   }
 
   /** Returns all header names in normalized form (case not preserved) */
   @Nonnull
   public Set<String> getHeaderNames() {
-    return Set.copyOf(this.headers.keySet());
+    return this.materializedHeaders().names();
   }
 
   /**
@@ -206,17 +295,23 @@ public class RequestContext {
    */
   @Nonnull
   public List<String> removeHeader(String name) {
-    return this.headers.removeAll(this.normalizeHeaderName(name)).stream()
-        .map(RequestContextHeader::getValue)
-        .collect(Collectors.toUnmodifiableList());
+    String normalizedName = normalizeHeaderName(name);
+    RequestContextHeaders currentHeaders = this.materializedHeaders();
+    List<String> removedValues = currentHeaders.allValues(normalizedName);
+    if (!removedValues.isEmpty()) {
+      this.headers = currentHeaders.without(normalizedName);
+    }
+    return removedValues;
   }
 
   /** Returns all header values matching the provided header name, case insensitively. */
   @Nonnull
   public List<String> getAllHeaderValues(String key) {
-    return this.headers.get(this.normalizeHeaderName(key)).stream()
-        .map(RequestContextHeader::getValue)
-        .collect(Collectors.toUnmodifiableList());
+    LazyMetadataHeaders currentMetadataView = this.metadataView;
+    if (currentMetadataView != null) {
+      return currentMetadataView.allValues(normalizeHeaderName(key));
+    }
+    return this.headers.allValues(normalizeHeaderName(key));
   }
 
   /**
@@ -225,7 +320,7 @@ public class RequestContext {
    */
   @Nonnull
   public List<RequestContextHeader> getAllHeaders() {
-    return List.copyOf(this.headers.values());
+    return this.materializedHeaders().headers();
   }
 
   /**
@@ -234,13 +329,28 @@ public class RequestContext {
    */
   @Nonnull
   public Optional<String> getHeaderValue(String key) {
-    return this.headers.get(this.normalizeHeaderName(key)).stream()
-        .map(RequestContextHeader::getValue)
-        .findFirst();
+    return Optional.ofNullable(this.firstHeaderValue(normalizeHeaderName(key)));
   }
 
+  @Nullable
+  private String firstHeaderValue(String normalizedName) {
+    LazyMetadataHeaders currentMetadataView = this.metadataView;
+    if (currentMetadataView != null) {
+      return currentMetadataView.firstValue(normalizedName);
+    }
+    return this.headers.firstValue(normalizedName);
+  }
+
+  /**
+   * Calls the provided callable with this as the current request context. If this is already
+   * current, as when nested calls are made on behalf of the same request, no new gRPC context is
+   * attached.
+   */
   public <V> V call(@Nonnull Callable<V> callable) {
     try {
+      if (RequestContext.CURRENT.get() == this) {
+        return callable.call();
+      }
       return Context.current().withValue(RequestContext.CURRENT, this).call(callable);
     } catch (Exception e) {
       if (e instanceof RuntimeException) {
@@ -250,10 +360,42 @@ public class RequestContext {
     }
   }
 
+  /** Runs the provided runnable with this as the current request context, like {@link #call}. */
   public void run(@Nonnull Runnable runnable) {
+    if (RequestContext.CURRENT.get() == this) {
+      runnable.run();
+      return;
+    }
     Context.current().withValue(RequestContext.CURRENT, this).run(runnable);
   }
 
+  /**
+   * Returns the value memoized for the provided key in this request, calling the loader if there
+   * is none. Concurrent callers for the same key wait for a single load, and a failed load is not
+   * remembered. Keys should identify the value and its type, for example a {@link ContextualKey}.
+   * Values are held until {@link #clearMemoizedValues()}, which the server interceptor calls when
+   * the call completes. Each request holds a bounded number of keys, beyond which values are loaded
+   * on every call.
+   */
+  public <V> V memoize(@Nonnull Object key, @Nonnull Supplier<? extends V> loader) {
+    RequestMemo currentMemo = this.memo;
+    if (currentMemo == null) {
+      synchronized (this) {
+        currentMemo = this.memo;
+        if (currentMemo == null) {
+          currentMemo = new RequestMemo();
+          this.memo = currentMemo;
+        }
+      }
+    }
+    return currentMemo.get(requireNonNull(key), loader);
+  }
+
+  /** Releases any values memoized in this request. */
+  public void clearMemoizedValues() {
+    this.memo = null;
+  }
+
   /**
    * @deprecated - Use {@link #buildInternalContextualKey(Object)} ()} or {@link
    *     #buildUserContextualKey(Object)} instead, as appropriate. This delegates to {@link
@@ -276,7 +418,7 @@ public class RequestContext {
 
   /** This returns a cache key based on this user request context. */
   public ContextualKey<Void> buildUserContextualKey() {
-    return new DefaultContextualKey<>(this, null, CACHE_MEANINGFUL_HEADERS);
+    return new DefaultContextualKey<>(this, null, USER_KEY_HEADER_NAMES);
   }
 
   /**
@@ -284,7 +426,7 @@ public class RequestContext {
    * the cache key.
    */
   public <T> ContextualKey<T> buildUserContextualKey(T data) {
-    return new DefaultContextualKey<>(this, data, CACHE_MEANINGFUL_HEADERS);
+    return new DefaultContextualKey<>(this, data, USER_KEY_HEADER_NAMES);
   }
 
   /**
@@ -293,7 +435,7 @@ public class RequestContext {
    * agent.
    */
   public ContextualKey<Void> buildInternalContextualKey() {
-    return new DefaultContextualKey<>(this, null, List.of(TENANT_ID_HEADER_KEY));
+    return new DefaultContextualKey<>(this, null, INTERNAL_KEY_HEADER_NAMES);
   }
 
   /**
@@ -301,32 +443,63 @@ public class RequestContext {
    * of the cache key.
    */
   public <T> ContextualKey<T> buildInternalContextualKey(T data) {
-    return new DefaultContextualKey<>(this, data, List.of(TENANT_ID_HEADER_KEY));
+    return new DefaultContextualKey<>(this, data, INTERNAL_KEY_HEADER_NAMES);
   }
 
   /** Converts the request context into metadata to be used as trailers */
   public Metadata buildTrailers() {
     Metadata trailers = new Metadata();
-    // Propagate the tenant id and request id back
-    this.getRequestId()
-        .ifPresent(
-            requestId ->
-                trailers.put(
-                    Key.of(RequestContextConstants.REQUEST_ID_HEADER_KEY, ASCII_STRING_MARSHALLER),
-                    requestId));
-    this.getTenantId()
-        .ifPresent(
-            tenantId -> trailers.put(RequestContextConstants.TENANT_ID_METADATA_KEY, tenantId));
+    this.addTrailersTo(trailers);
     return trailers;
   }
 
-  private String normalizeHeaderName(@Nonnull String headerName) {
-    return headerName.toLowerCase();
+  void addTrailersTo(Metadata trailers) {
+    // Propagate the tenant id and request id back
+    String requestId = this.firstHeaderValue(RequestContextConstants.REQUEST_ID_HEADER_KEY);
+    if (requestId != null) {
+      trailers.put(RequestContextConstants.REQUEST_ID_METADATA_KEY, requestId);
+    }
+    String tenantId = this.firstHeaderValue(RequestContextConstants.TENANT_ID_HEADER_KEY);
+    if (tenantId != null) {
+      trailers.put(RequestContextConstants.TENANT_ID_METADATA_KEY, tenantId);
+    }
+  }
+
+  static String normalizeHeaderName(@Nonnull String headerName) {
+    return HeaderNames.normalize(headerName);
+  }
+
+  /** Returns the headers of this context, first decoding them all if this is a lazy view. */
+  RequestContextHeaders materializedHeaders() {
+    if (this.metadataView != null) {
+      synchronized (this) {
+        LazyMetadataHeaders currentMetadataView = this.metadataView;
+        if (currentMetadataView != null) {
+          // Headers must be published before the view is cleared, as readers check the view first
+          this.headers = currentMetadataView.materialize();
+          this.metadataView = null;
+        }
+      }
+    }
+    return this.headers;
+  }
+
+  private String getHeadersOtherThanAuth() {
+    return this.materializedHeaders()
+        .toString(key -> !key.equals(RequestContextConstants.AUTHORIZATION_HEADER));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    RequestContext that = (RequestContext) o;
+    return this.materializedHeaders().equals(that.materializedHeaders());
   }
 
-  private Multimap<String, RequestContextHeader> getHeadersOtherThanAuth() {
-    return Multimaps.filterKeys(
-        headers, key -> !key.equals(RequestContextConstants.AUTHORIZATION_HEADER));
+  @Override
+  public int hashCode() {
+    return this.materializedHeaders().hashCode();
   }
 
   @Override
@@ -340,6 +513,16 @@ public class RequestContext {
         + '}';
   }
 
+  private static final class MemoizedJwt {
+    private final String authHeaderValue;
+    private final Optional<Jwt> jwt;
+
+    private MemoizedJwt(String authHeaderValue, Optional<Jwt> jwt) {
+      this.authHeaderValue = authHeaderValue;
+      this.jwt = jwt;
+    }
+  }
+
   @Value
   public static class RequestContextHeader {
     String name;
@@ -1,7 +1,5 @@
 package org.hypertrace.core.grpcutils.context;
 
-import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
-
 import io.grpc.Metadata;
 import java.util.Set;
 
@@ -16,11 +14,20 @@ public class RequestContextConstants {
   public static final String SUPPRESS_USER_TRACKING_HEADER_KEY = "x-suppress-user-tracking";
 
   public static final Metadata.Key<String> TENANT_ID_METADATA_KEY =
-      Metadata.Key.of(TENANT_ID_HEADER_KEY, ASCII_STRING_MARSHALLER);
+      MetadataKeys.asciiKey(TENANT_ID_HEADER_KEY);
+
+  public static final Metadata.Key<String> REQUEST_ID_METADATA_KEY =
+      MetadataKeys.asciiKey(REQUEST_ID_HEADER_KEY);
 
   public static final String AUTHORIZATION_HEADER = "authorization";
 
-  /** The values in this set are looked up with case insensitivity. */
+  /** Carries the whole request context in a single header, see {@link PackedRequestContext}. */
+  public static final String PACKED_REQUEST_CONTEXT_HEADER_KEY = "x-request-context-bin";
+
+  /**
+   * The values in this set are looked up with case insensitivity. These are the defaults, the set
+   * used at runtime can be changed via {@link PropagatedHeaderMatcher#setDefault}.
+   */
   public static final Set<String> HEADER_PREFIXES_TO_BE_PROPAGATED =
       Set.of(
           TENANT_ID_HEADER_KEY,
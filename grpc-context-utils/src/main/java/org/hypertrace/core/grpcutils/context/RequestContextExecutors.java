@@ -0,0 +1,110 @@
+package org.hypertrace.core.grpcutils.context;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.grpc.Context;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+
+/**
+ * Executors that carry the {@link RequestContext}, and the rest of the gRPC {@link Context}, from
+ * the thread that submits a task to the thread that runs it. Without them, work handed to an
+ * executor, for example through {@link java.util.concurrent.CompletableFuture#supplyAsync}, runs
+ * without {@link RequestContext#CURRENT}.
+ */
+public final class RequestContextExecutors {
+  /** Platform threads used at most by {@link #newThreadPerTaskExecutor()} on older runtimes. */
+  public static final int DEFAULT_MAXIMUM_PLATFORM_THREADS = 64;
+
+  private RequestContextExecutors() {}
+
+  /** Wraps an executor so that each task runs in the context current when it was submitted. */
+  public static Executor propagating(@Nonnull Executor executor) {
+    return Context.currentContextExecutor(executor);
+  }
+
+  /**
+   * Wraps an executor service so that each task runs in the context current when it was submitted.
+   * Shutting down the returned service shuts down the wrapped one. For a {@link
+   * java.util.concurrent.ForkJoinPool}, tasks forked from within a running task are not wrapped,
+   * and inherit nothing, so should be given their context explicitly.
+   */
+  public static ExecutorService propagating(@Nonnull ExecutorService executorService) {
+    if (executorService instanceof ContextPropagatingExecutorService) {
+      return executorService;
+    }
+    return new ContextPropagatingExecutorService(executorService);
+  }
+
+  /**
+   * Wraps a thread factory so that each thread it creates runs in the context current when the
+   * thread was requested. Passing the wrapped factory to a structured task scope, for example one
+   * built from {@code Thread.ofVirtual().factory()} on Java 21, lets every forked subtask read the
+   * request context of the task that forked it through {@link RequestContext#CURRENT}.
+   *
+   * <p><b>Only use this factory where each thread runs exactly one task</b>, such as a structured
+   * task scope or a thread per task executor. The context is captured once per thread, not per
+   * task, so a pooled executor, such as a {@link java.util.concurrent.ThreadPoolExecutor} or
+   * {@link Executors#newCachedThreadPool}, would run every later task on a thread with the request
+   * context, tenant and token of the request that created the thread. Wrap pooled executors with
+   * {@link #propagating(ExecutorService)} instead.
+   */
+  public static ThreadFactory propagatingThreadFactory(@Nonnull ThreadFactory threadFactory) {
+    return runnable -> threadFactory.newThread(Context.current().wrap(runnable));
+  }
+
+  /**
+   * Returns a new executor service that starts a thread for each task, running it in the context
+   * current when it was submitted. On runtimes with virtual threads each task gets a virtual
+   * thread, so tasks making blocking calls can fan out without exhausting a pool. Otherwise, such
+   * as on Java 11, it falls back to a pool of at most {@link #DEFAULT_MAXIMUM_PLATFORM_THREADS}
+   * platform threads, see {@link #newThreadPerTaskExecutor(int)}. The returned service should be
+   * shut down once no longer needed.
+   */
+  public static ExecutorService newThreadPerTaskExecutor() {
+    return newThreadPerTaskExecutor(DEFAULT_MAXIMUM_PLATFORM_THREADS);
+  }
+
+  /**
+   * A variant of {@link #newThreadPerTaskExecutor()} with the size of the platform thread pool used
+   * where virtual threads are unavailable. That pool starts threads up to the provided maximum,
+   * releases them after a minute idle, and queues any further tasks until a thread is free, so a
+   * fan out of blocking calls waits rather than exhausting the platform threads.
+   */
+  public static ExecutorService newThreadPerTaskExecutor(int maximumPlatformThreads) {
+    if (maximumPlatformThreads < 1) {
+      throw new IllegalArgumentException(
+          "Maximum platform threads must be positive: " + maximumPlatformThreads);
+    }
+    return new ContextPropagatingExecutorService(
+        createThreadPerTaskExecutor(maximumPlatformThreads));
+  }
+
+  private static ExecutorService createThreadPerTaskExecutor(int maximumPlatformThreads) {
+    try {
+      // Looked up reflectively, as virtual threads are only available from Java 21
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      ThreadPoolExecutor executor =
+          new ThreadPoolExecutor(
+              maximumPlatformThreads,
+              maximumPlatformThreads,
+              1,
+              TimeUnit.MINUTES,
+              new LinkedBlockingQueue<>(),
+              new ThreadFactoryBuilder()
+                  .setNameFormat("request-context-task-%d")
+                  .setDaemon(true)
+                  .build());
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+  }
+}
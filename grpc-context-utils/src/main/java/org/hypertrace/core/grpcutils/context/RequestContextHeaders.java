@@ -0,0 +1,528 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.hypertrace.core.grpcutils.context.RequestContext.RequestContextHeader;
+
+/**
+ * Immutable, array backed storage for the headers of a {@link RequestContext}. Names, normalized
+ * names and values are held in parallel arrays. Entries are kept grouped by normalized name, with
+ * groups in first insertion order and values within a group in insertion order, which matches the
+ * iteration order of the linked multimap previously used. Mutations return a new instance.
+ *
+ * <p>Modifying a larger instance does not copy it. Instead the result is a layer over the original
+ * base, holding the complete group of each name it has added to or overridden, and the names it has
+ * removed. Lookups by name check the layer and then fall through to the base, while positional
+ * access, iteration and equality use a flattened copy built on first use. A layer is flattened
+ * eagerly once it grows past a few entries, so lookups never walk more than one layer.
+ */
+final class RequestContextHeaders {
+  private static final String[] NO_NAMES = new String[0];
+  static final RequestContextHeaders EMPTY =
+      new RequestContextHeaders(NO_NAMES, NO_NAMES, NO_NAMES, 0);
+  // Below this size, copying the arrays outright is cheaper than layering over them
+  private static final int MIN_LAYERED_BASE_SIZE = 8;
+  // Maximum number of entries and removed names held by a layer before it is flattened
+  private static final int MAX_LAYER_SIZE = 8;
+
+  // For a layer, these hold only the entries of the layer itself
+  private final String[] names;
+  private final String[] normalizedNames;
+  private final String[] values;
+  private final int size;
+  // Set only for a layer, in which case the base is always flat
+  @Nullable private final RequestContextHeaders base;
+  private final String[] removedNames;
+  @Nullable private volatile RequestContextHeaders flattened;
+  private int hash;
+
+  private RequestContextHeaders(
+      String[] names, String[] normalizedNames, String[] values, int size) {
+    this(names, normalizedNames, values, size, null, NO_NAMES);
+  }
+
+  private RequestContextHeaders(
+      String[] names,
+      String[] normalizedNames,
+      String[] values,
+      int size,
+      @Nullable RequestContextHeaders base,
+      String[] removedNames) {
+    this.names = names;
+    this.normalizedNames = normalizedNames;
+    this.values = values;
+    this.size = size;
+    this.base = base;
+    this.removedNames = removedNames;
+  }
+
+  static Builder builder() {
+    return new Builder();
+  }
+
+  int size() {
+    return this.flat().size;
+  }
+
+  boolean isEmpty() {
+    return this.size() == 0;
+  }
+
+  String nameAt(int index) {
+    return this.flat().names[index];
+  }
+
+  String normalizedNameAt(int index) {
+    return this.flat().normalizedNames[index];
+  }
+
+  @Nullable
+  String valueAt(int index) {
+    return this.flat().values[index];
+  }
+
+  /** Index of the first entry with the provided normalized name, or -1 if none. */
+  int indexOf(String normalizedName) {
+    return this.flat().ownIndexOf(normalizedName);
+  }
+
+  boolean contains(String normalizedName) {
+    if (this.ownIndexOf(normalizedName) >= 0) {
+      return true;
+    }
+    return this.base != null
+        && !this.isRemoved(normalizedName)
+        && this.base.contains(normalizedName);
+  }
+
+  @Nullable
+  String firstValue(String normalizedName) {
+    int index = this.ownIndexOf(normalizedName);
+    if (index >= 0) {
+      return this.values[index];
+    }
+    if (this.base == null || this.isRemoved(normalizedName)) {
+      return null;
+    }
+    return this.base.firstValue(normalizedName);
+  }
+
+  @Nonnull
+  List<String> allValues(String normalizedName) {
+    int start = this.ownIndexOf(normalizedName);
+    if (start >= 0) {
+      return this.groupValues(start);
+    }
+    if (this.base == null || this.isRemoved(normalizedName)) {
+      return Collections.emptyList();
+    }
+    return this.base.allValues(normalizedName);
+  }
+
+  @Nonnull
+  Set<String> names() {
+    if (this.base != null) {
+      return this.flat().names();
+    }
+    Set<String> result = new LinkedHashSet<>();
+    for (int i = 0; i < this.size; i = this.groupEnd(i)) {
+      result.add(this.normalizedNames[i]);
+    }
+    return Collections.unmodifiableSet(result);
+  }
+
+  @Nonnull
+  List<RequestContextHeader> headers() {
+    return this.headers(normalizedName -> true);
+  }
+
+  @Nonnull
+  List<RequestContextHeader> headers(Predicate<String> normalizedNameFilter) {
+    if (this.base != null) {
+      return this.flat().headers(normalizedNameFilter);
+    }
+    List<RequestContextHeader> result = new ArrayList<>(this.size);
+    for (int i = 0; i < this.size; i++) {
+      if (normalizedNameFilter.test(this.normalizedNames[i])) {
+        result.add(new RequestContextHeader(this.names[i], this.values[i]));
+      }
+    }
+    return Collections.unmodifiableList(result);
+  }
+
+  /** Returns a copy with the provided header appended to the end of its name group. */
+  RequestContextHeaders with(String name, String normalizedName, @Nullable String value) {
+    if (this.base == null && this.size < MIN_LAYERED_BASE_SIZE) {
+      return this.withEntry(name, normalizedName, value);
+    }
+    RequestContextHeaders layerBase = this.base == null ? this : this.base;
+    RequestContextHeaders layerEntries = this.base == null ? EMPTY : this.layerEntries();
+    String[] layerRemovedNames = this.base == null ? NO_NAMES : this.removedNames;
+    if (layerEntries.ownIndexOf(normalizedName) < 0
+        && !contains(layerRemovedNames, normalizedName)) {
+      int baseStart = layerBase.ownIndexOf(normalizedName);
+      if (baseStart >= 0) {
+        // The layer takes over the whole group, so the new value follows the existing ones
+        for (int i = baseStart; i < layerBase.groupEnd(baseStart); i++) {
+          layerEntries =
+              layerEntries.withEntry(
+                  layerBase.names[i], layerBase.normalizedNames[i], layerBase.values[i]);
+        }
+      }
+    }
+    return layer(
+        layerBase, layerEntries.withEntry(name, normalizedName, value), layerRemovedNames);
+  }
+
+  /** Returns a copy without any header matching the normalized name, or this if none match. */
+  RequestContextHeaders without(String normalizedName) {
+    if (this.base == null) {
+      if (this.ownIndexOf(normalizedName) < 0) {
+        return this;
+      }
+      return this.size < MIN_LAYERED_BASE_SIZE
+          ? this.withoutGroup(normalizedName)
+          : layer(this, EMPTY, new String[] {normalizedName});
+    }
+    RequestContextHeaders layerEntries = this.layerEntries().withoutGroup(normalizedName);
+    boolean removesFromBase =
+        !this.isRemoved(normalizedName) && this.base.ownIndexOf(normalizedName) >= 0;
+    if (!removesFromBase) {
+      return layerEntries.size == this.size
+          ? this
+          : layer(this.base, layerEntries, this.removedNames);
+    }
+    String[] layerRemovedNames = Arrays.copyOf(this.removedNames, this.removedNames.length + 1);
+    layerRemovedNames[this.removedNames.length] = normalizedName;
+    return layer(this.base, layerEntries, layerRemovedNames);
+  }
+
+  private static RequestContextHeaders layer(
+      RequestContextHeaders base, RequestContextHeaders layerEntries, String[] removedNames) {
+    if (layerEntries.size == 0 && removedNames.length == 0) {
+      return base;
+    }
+    RequestContextHeaders layer =
+        new RequestContextHeaders(
+            layerEntries.names,
+            layerEntries.normalizedNames,
+            layerEntries.values,
+            layerEntries.size,
+            base,
+            removedNames);
+    return layerEntries.size + removedNames.length > MAX_LAYER_SIZE ? layer.flat() : layer;
+  }
+
+  /** The entries held directly by a layer, as a flat instance sharing its arrays. */
+  private RequestContextHeaders layerEntries() {
+    return new RequestContextHeaders(this.names, this.normalizedNames, this.values, this.size);
+  }
+
+  private RequestContextHeaders flat() {
+    if (this.base == null) {
+      return this;
+    }
+    RequestContextHeaders result = this.flattened;
+    if (result == null) {
+      result = this.flatten();
+      this.flattened = result;
+    }
+    return result;
+  }
+
+  /**
+   * Merges a layer into its base. Groups of the base stay in place, replaced by the layer's group
+   * if it has one, and the remaining groups of the layer follow in order, as if every modification
+   * had been applied to a copy of the base.
+   */
+  private RequestContextHeaders flatten() {
+    RequestContextHeaders base = requireNonNull(this.base);
+    int capacity = base.size + this.size;
+    String[] newNames = new String[capacity];
+    String[] newNormalizedNames = new String[capacity];
+    String[] newValues = new String[capacity];
+    boolean[] merged = new boolean[this.size];
+    int newSize = 0;
+    for (int start = 0; start < base.size; start = base.groupEnd(start)) {
+      String normalizedName = base.normalizedNames[start];
+      if (this.isRemoved(normalizedName)) {
+        continue;
+      }
+      int layerStart = this.ownIndexOf(normalizedName);
+      if (layerStart < 0) {
+        newSize = base.copyGroup(start, newNames, newNormalizedNames, newValues, newSize);
+      } else {
+        merged[layerStart] = true;
+        newSize = this.copyGroup(layerStart, newNames, newNormalizedNames, newValues, newSize);
+      }
+    }
+    for (int start = 0; start < this.size; start = this.groupEnd(start)) {
+      if (!merged[start]) {
+        newSize = this.copyGroup(start, newNames, newNormalizedNames, newValues, newSize);
+      }
+    }
+    if (newSize == 0) {
+      return EMPTY;
+    }
+    return new RequestContextHeaders(newNames, newNormalizedNames, newValues, newSize);
+  }
+
+  private int copyGroup(
+      int start,
+      String[] targetNames,
+      String[] targetNormalizedNames,
+      String[] targetValues,
+      int targetSize) {
+    int length = this.groupEnd(start) - start;
+    System.arraycopy(this.names, start, targetNames, targetSize, length);
+    System.arraycopy(this.normalizedNames, start, targetNormalizedNames, targetSize, length);
+    System.arraycopy(this.values, start, targetValues, targetSize, length);
+    return targetSize + length;
+  }
+
+  private RequestContextHeaders withEntry(
+      String name, String normalizedName, @Nullable String value) {
+    int insertAt = this.ownIndexOf(normalizedName);
+    insertAt = insertAt < 0 ? this.size : this.groupEnd(insertAt);
+    String[] newNames = new String[this.size + 1];
+    String[] newNormalizedNames = new String[this.size + 1];
+    String[] newValues = new String[this.size + 1];
+    copyWithGap(this.names, newNames, insertAt, this.size);
+    copyWithGap(this.normalizedNames, newNormalizedNames, insertAt, this.size);
+    copyWithGap(this.values, newValues, insertAt, this.size);
+    newNames[insertAt] = name;
+    newNormalizedNames[insertAt] = normalizedName;
+    newValues[insertAt] = value;
+    return new RequestContextHeaders(newNames, newNormalizedNames, newValues, this.size + 1);
+  }
+
+  private RequestContextHeaders withoutGroup(String normalizedName) {
+    int start = this.ownIndexOf(normalizedName);
+    if (start < 0) {
+      return this;
+    }
+    int end = this.groupEnd(start);
+    int newSize = this.size - (end - start);
+    if (newSize == 0) {
+      return EMPTY;
+    }
+    return new RequestContextHeaders(
+        copyWithoutRange(this.names, start, end, this.size),
+        copyWithoutRange(this.normalizedNames, start, end, this.size),
+        copyWithoutRange(this.values, start, end, this.size),
+        newSize);
+  }
+
+  private int ownIndexOf(String normalizedName) {
+    for (int i = 0; i < this.size; i++) {
+      // Normalized names are canonical instances, so a match is almost always identical
+      String candidate = this.normalizedNames[i];
+      if (normalizedName == candidate || normalizedName.equals(candidate)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private boolean isRemoved(String normalizedName) {
+    return contains(this.removedNames, normalizedName);
+  }
+
+  private List<String> groupValues(int start) {
+    int end = this.groupEnd(start);
+    if (end - start == 1) {
+      return Collections.singletonList(this.values[start]);
+    }
+    return Collections.unmodifiableList(Arrays.asList(Arrays.copyOfRange(this.values, start, end)));
+  }
+
+  private int groupEnd(int groupStart) {
+    String normalizedName = this.normalizedNames[groupStart];
+    int end = groupStart + 1;
+    while (end < this.size && normalizedName.equals(this.normalizedNames[end])) {
+      end++;
+    }
+    return end;
+  }
+
+  private static boolean contains(String[] normalizedNames, String normalizedName) {
+    for (String candidate : normalizedNames) {
+      if (candidate.equals(normalizedName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void copyWithGap(String[] source, String[] target, int gapIndex, int size) {
+    System.arraycopy(source, 0, target, 0, gapIndex);
+    System.arraycopy(source, gapIndex, target, gapIndex + 1, size - gapIndex);
+  }
+
+  private static String[] copyWithoutRange(String[] source, int start, int end, int size) {
+    String[] target = new String[size - (end - start)];
+    System.arraycopy(source, 0, target, 0, start);
+    System.arraycopy(source, end, target, start, size - end);
+    return target;
+  }
+
+  /**
+   * Two instances are equal if they have the same names, and for each name the same sequence of
+   * original name and value pairs. The relative order of different names is not significant.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    RequestContextHeaders self = this.flat();
+    RequestContextHeaders that = ((RequestContextHeaders) o).flat();
+    if (self.size != that.size || self.hashCode() != that.hashCode()) {
+      return false;
+    }
+    for (int start = 0; start < self.size; start = self.groupEnd(start)) {
+      int otherStart = that.ownIndexOf(self.normalizedNames[start]);
+      if (otherStart < 0) {
+        return false;
+      }
+      int end = self.groupEnd(start);
+      if (that.groupEnd(otherStart) - otherStart != end - start) {
+        return false;
+      }
+      for (int i = start, j = otherStart; i < end; i++, j++) {
+        if (!self.names[i].equals(that.names[j])
+            || !Objects.equals(self.values[i], that.values[j])) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    if (this.base != null) {
+      return this.flat().hashCode();
+    }
+    int result = this.hash;
+    if (result == 0 && this.size > 0) {
+      for (int start = 0; start < this.size; ) {
+        int end = this.groupEnd(start);
+        int groupHash = 1;
+        for (int i = start; i < end; i++) {
+          groupHash =
+              31 * groupHash
+                  + (31 * this.names[i].hashCode() + Objects.hashCode(this.values[i]));
+        }
+        result += this.normalizedNames[start].hashCode() ^ groupHash;
+        start = end;
+      }
+      this.hash = result;
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return this.toString(normalizedName -> true);
+  }
+
+  String toString(Predicate<String> normalizedNameFilter) {
+    if (this.base != null) {
+      return this.flat().toString(normalizedNameFilter);
+    }
+    StringBuilder builder = new StringBuilder("{");
+    boolean first = true;
+    for (int start = 0; start < this.size; ) {
+      int end = this.groupEnd(start);
+      if (normalizedNameFilter.test(this.normalizedNames[start])) {
+        if (!first) {
+          builder.append(", ");
+        }
+        first = false;
+        builder.append(this.normalizedNames[start]).append("=[");
+        for (int i = start; i < end; i++) {
+          if (i > start) {
+            builder.append(", ");
+          }
+          builder.append(new RequestContextHeader(this.names[i], this.values[i]));
+        }
+        builder.append(']');
+      }
+      start = end;
+    }
+    return builder.append('}').toString();
+  }
+
+  /**
+   * Accumulates headers into growable arrays, producing a single {@link RequestContextHeaders}
+   * without intermediate copies. Not thread safe.
+   */
+  static final class Builder {
+    private String[] names = new String[8];
+    private String[] normalizedNames = new String[8];
+    private String[] values = new String[8];
+    private int size;
+
+    private Builder() {}
+
+    Builder add(String name, String normalizedName, @Nullable String value) {
+      if (this.size == this.names.length) {
+        int newCapacity = this.size * 2;
+        this.names = Arrays.copyOf(this.names, newCapacity);
+        this.normalizedNames = Arrays.copyOf(this.normalizedNames, newCapacity);
+        this.values = Arrays.copyOf(this.values, newCapacity);
+      }
+      int insertAt = this.size;
+      for (int i = this.size - 1; i >= 0; i--) {
+        if (normalizedName.equals(this.normalizedNames[i])) {
+          insertAt = i + 1;
+          break;
+        }
+      }
+      if (insertAt < this.size) {
+        System.arraycopy(this.names, insertAt, this.names, insertAt + 1, this.size - insertAt);
+        System.arraycopy(
+            this.normalizedNames,
+            insertAt,
+            this.normalizedNames,
+            insertAt + 1,
+            this.size - insertAt);
+        System.arraycopy(this.values, insertAt, this.values, insertAt + 1, this.size - insertAt);
+      }
+      this.names[insertAt] = name;
+      this.normalizedNames[insertAt] = normalizedName;
+      this.values[insertAt] = value;
+      this.size++;
+      return this;
+    }
+
+    /** A copy of the normalized names added so far, unaffected by later additions. */
+    Set<String> normalizedNames() {
+      return new HashSet<>(Arrays.asList(this.normalizedNames).subList(0, this.size));
+    }
+
+    RequestContextHeaders build() {
+      if (this.size == 0) {
+        return EMPTY;
+      }
+      // Arrays are handed over rather than copied, so the builder must not be reused
+      RequestContextHeaders headers =
+          new RequestContextHeaders(this.names, this.normalizedNames, this.values, this.size);
+      this.names = null;
+      this.normalizedNames = null;
+      this.values = null;
+      return headers;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package org.hypertrace.core.grpcutils.context;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Generates the ids assigned to requests that arrive without one. The default, used by {@link
+ * RequestContext#forTenantId(String)} and the server interceptors, can be replaced with {@link
+ * #setDefault(RequestIdGenerator)}.
+ */
+@FunctionalInterface
+public interface RequestIdGenerator {
+  String generate();
+
+  /**
+   * Random (version 4) UUIDs, drawn from {@link java.util.concurrent.ThreadLocalRandom} so callers
+   * never contend, and formatted without creating a {@link java.util.UUID}. This is the default.
+   */
+  static RequestIdGenerator randomUuid() {
+    return UuidRequestIdGenerator.RANDOM;
+  }
+
+  /**
+   * Time ordered (version 7) UUIDs, led by the current time in milliseconds, so that request ids
+   * sort by the time they were generated.
+   */
+  static RequestIdGenerator timeOrderedUuid() {
+    return UuidRequestIdGenerator.TIME_ORDERED;
+  }
+
+  static RequestIdGenerator getDefault() {
+    return DefaultRequestIdGenerator.get();
+  }
+
+  static void setDefault(@Nonnull RequestIdGenerator generator) {
+    DefaultRequestIdGenerator.set(generator);
+  }
+}
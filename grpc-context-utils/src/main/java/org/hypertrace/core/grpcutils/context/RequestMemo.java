@@ -0,0 +1,75 @@
+package org.hypertrace.core.grpcutils.context;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Values memoized for the lifetime of a single request. Concurrent callers asking for the same key
+ * share one load, failures are not remembered, and once {@link #MAX_ENTRIES} keys are held any
+ * further keys are loaded on every call rather than evicting earlier ones. Like {@link
+ * ConcurrentHashMap#computeIfAbsent}, a loader must not memoize the key it is loading, which fails
+ * with an {@link IllegalStateException} rather than waiting on itself forever. Only recursion on
+ * the loading thread is detected: loaders on different threads that each wait on a key the other
+ * is loading deadlock, as they would with {@link ConcurrentHashMap#computeIfAbsent}, so loaders
+ * must not wait on other threads that memoize values of the same request.
+ */
+final class RequestMemo {
+  static final int MAX_ENTRIES = 256;
+
+  private final ConcurrentMap<Object, PendingValue> values = new ConcurrentHashMap<>();
+
+  @SuppressWarnings("unchecked")
+  <V> V get(Object key, Supplier<? extends V> loader) {
+    PendingValue existingValue = this.values.get(key);
+    if (existingValue == null) {
+      if (this.values.size() >= MAX_ENTRIES) {
+        return loader.get();
+      }
+      PendingValue newValue = new PendingValue();
+      existingValue = this.values.putIfAbsent(key, newValue);
+      if (existingValue == null) {
+        // Loaded outside of the map, so the loader may itself memoize other values
+        return (V) this.load(key, newValue, loader);
+      }
+    }
+    if (existingValue.loadingThread == Thread.currentThread() && !existingValue.isDone()) {
+      throw new IllegalStateException("Recursive memoization of key " + key);
+    }
+    try {
+      return (V) existingValue.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private Object load(Object key, PendingValue futureValue, Supplier<?> loader) {
+    try {
+      Object value = loader.get();
+      futureValue.loadingThread = null;
+      futureValue.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      futureValue.loadingThread = null;
+      this.values.remove(key, futureValue);
+      futureValue.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * A value that is, or is being, loaded by the thread that first requested it. The thread is only
+   * held until loading completes.
+   */
+  private static final class PendingValue extends CompletableFuture<Object> {
+    private volatile Thread loadingThread = Thread.currentThread();
+  }
+}
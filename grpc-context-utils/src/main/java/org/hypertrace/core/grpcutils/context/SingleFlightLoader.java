@@ -0,0 +1,81 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+
+/**
+ * Coalesces concurrent loads of equal {@link ContextualKey}s, so that callers arriving while a load
+ * is in flight share its result rather than starting their own. Useful in front of a downstream
+ * call when a hot cache key misses. Once a load completes, the next caller starts a new one; use a
+ * cache to retain results.
+ *
+ * <p>The load runs in the {@link RequestContext} of the key of the caller that started it, via
+ * {@link ContextualKey#callInContext(Function)}. Every caller receives its own future, so a caller
+ * cancelling or timing out does not affect the shared load or the other callers.
+ *
+ * @param <T> the type of the key data
+ * @param <V> the type of the loaded value
+ */
+public final class SingleFlightLoader<T, V> {
+  private final Function<T, ? extends CompletionStage<V>> loadFunction;
+  private final ConcurrentMap<ContextualKey<T>, CompletableFuture<V>> inFlightLoads =
+      new ConcurrentHashMap<>();
+
+  /** Builds a loader that loads the key data with the provided function. */
+  public SingleFlightLoader(@Nonnull Function<T, ? extends CompletionStage<V>> loadFunction) {
+    this.loadFunction = requireNonNull(loadFunction);
+  }
+
+  /** Returns the result of the in flight load of an equal key, or starts a new load. */
+  public CompletableFuture<V> load(@Nonnull ContextualKey<T> key) {
+    return this.getOrStartLoad(requireNonNull(key)).copy();
+  }
+
+  /**
+   * Like {@link #load(ContextualKey)}, but the returned future fails with a {@link
+   * java.util.concurrent.TimeoutException} if the load does not complete within the provided
+   * deadline. The load itself continues for any other callers.
+   */
+  public CompletableFuture<V> load(@Nonnull ContextualKey<T> key, @Nonnull Duration deadline) {
+    return this.load(key).orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  /** The number of loads currently in flight. */
+  public int getInFlightCount() {
+    return this.inFlightLoads.size();
+  }
+
+  private CompletableFuture<V> getOrStartLoad(ContextualKey<T> key) {
+    CompletableFuture<V> newLoad = new CompletableFuture<>();
+    CompletableFuture<V> existingLoad = this.inFlightLoads.putIfAbsent(key, newLoad);
+    if (existingLoad != null) {
+      return existingLoad;
+    }
+    try {
+      key.callInContext(this.loadFunction)
+          .whenComplete((value, throwable) -> this.complete(key, newLoad, value, throwable));
+    } catch (Throwable t) {
+      this.complete(key, newLoad, null, t);
+    }
+    return newLoad;
+  }
+
+  private void complete(
+      ContextualKey<T> key, CompletableFuture<V> load, V value, Throwable throwable) {
+    // Removed first, so callers that see the result complete do not join a finished load
+    this.inFlightLoads.remove(key, load);
+    if (throwable == null) {
+      load.complete(value);
+    } else {
+      load.completeExceptionally(throwable);
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package org.hypertrace.core.grpcutils.context;
+
+import lombok.Value;
+
+/** A point in time snapshot of the statistics of one tenant in a {@link TenantPartitionedCache}. */
+@Value
+public class TenantCacheStats {
+  String tenantId;
+  long hitCount;
+  long missCount;
+  long loadSuccessCount;
+  long loadFailureCount;
+  long evictionCount;
+  long evictionWeight;
+  long estimatedSize;
+
+  public long getRequestCount() {
+    return this.hitCount + this.missCount;
+  }
+
+  /** Ratio of requests served from the cache, or 1 if there have been no requests. */
+  public double getHitRate() {
+    long requestCount = this.getRequestCount();
+    return requestCount == 0 ? 1.0 : (double) this.hitCount / requestCount;
+  }
+}
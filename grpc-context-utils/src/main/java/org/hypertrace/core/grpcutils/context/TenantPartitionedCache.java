@@ -0,0 +1,145 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A bounded async cache keyed by {@link ContextualKey}, with capacity split by the tenant of each
+ * key's {@link RequestContext}, so that one busy tenant cannot evict the entries of the others.
+ * Keys without a tenant share a partition of their own. Tenant ids come from inbound requests, so
+ * the number of partitions is bounded too: partitions of idle or rarely seen tenants are discarded,
+ * so the cache holds at most {@link TenantPartitionedCacheConfig#getMaximumTotalWeight()}.
+ *
+ * <p>Values are loaded, and reloaded ahead of expiry if configured, by running the load function
+ * through {@link ContextualKey#callInContext(Function)}. A reload runs in the context of the key
+ * that first loaded the entry. Concurrent loads of the same key share one in flight load.
+ *
+ * @param <T> the type of the key data
+ * @param <V> the type of the cached value
+ */
+public final class TenantPartitionedCache<T, V> {
+  private static final String NO_TENANT = "";
+
+  private final TenantPartitionedCacheConfig config;
+  private final Function<T, ? extends CompletionStage<V>> loadFunction;
+  @Nullable private final ToIntBiFunction<? super T, ? super V> weigher;
+  private final Cache<String, AsyncLoadingCache<ContextualKey<T>, V>> partitions;
+
+  private TenantPartitionedCache(
+      TenantPartitionedCacheConfig config,
+      Function<T, ? extends CompletionStage<V>> loadFunction,
+      @Nullable ToIntBiFunction<? super T, ? super V> weigher) {
+    this.config = requireNonNull(config);
+    this.loadFunction = requireNonNull(loadFunction);
+    this.weigher = weigher;
+    this.partitions =
+        Caffeine.newBuilder()
+            .maximumSize(config.getMaximumTenants())
+            .expireAfterAccess(config.getTenantExpireAfterAccess())
+            .build();
+  }
+
+  /** Builds a cache where every entry has a weight of one. */
+  public static <T, V> TenantPartitionedCache<T, V> create(
+      @Nonnull TenantPartitionedCacheConfig config,
+      @Nonnull Function<T, ? extends CompletionStage<V>> loadFunction) {
+    return new TenantPartitionedCache<>(config, loadFunction, null);
+  }
+
+  /**
+   * Builds a cache where each entry is weighed, from its key data and value, when it is loaded.
+   * Weights must not be negative.
+   */
+  public static <T, V> TenantPartitionedCache<T, V> create(
+      @Nonnull TenantPartitionedCacheConfig config,
+      @Nonnull Function<T, ? extends CompletionStage<V>> loadFunction,
+      @Nonnull ToIntBiFunction<? super T, ? super V> weigher) {
+    return new TenantPartitionedCache<>(config, loadFunction, requireNonNull(weigher));
+  }
+
+  /** Returns the cached value for the key, loading it if necessary. */
+  public CompletableFuture<V> get(@Nonnull ContextualKey<T> key) {
+    return this.getPartition(key).get(key);
+  }
+
+  public void invalidate(@Nonnull ContextualKey<T> key) {
+    this.getPartition(key).synchronous().invalidate(key);
+  }
+
+  /** Discards every entry of the provided tenant, along with its statistics. */
+  public void invalidateTenant(@Nonnull String tenantId) {
+    AsyncLoadingCache<ContextualKey<T>, V> partition = this.partitions.asMap().remove(tenantId);
+    if (partition != null) {
+      partition.synchronous().invalidateAll();
+    }
+  }
+
+  /** Statistics of each tenant with a partition in this cache, keyed by tenant id. */
+  public Map<String, TenantCacheStats> getStats() {
+    return this.partitions.asMap().entrySet().stream()
+        .collect(
+            Collectors.toUnmodifiableMap(
+                Map.Entry::getKey, entry -> buildStats(entry.getKey(), entry.getValue())));
+  }
+
+  /** Runs any pending maintenance, such as evictions, on every partition. */
+  void cleanUp() {
+    this.partitions.cleanUp();
+    this.partitions.asMap().values().forEach(partition -> partition.synchronous().cleanUp());
+  }
+
+  private AsyncLoadingCache<ContextualKey<T>, V> getPartition(ContextualKey<T> key) {
+    String tenantId = key.getContext().getTenantId().orElse(NO_TENANT);
+    // A discarded partition is simply dropped, its entries are released with it
+    return this.partitions.get(tenantId, unused -> this.buildPartition());
+  }
+
+  private AsyncLoadingCache<ContextualKey<T>, V> buildPartition() {
+    Caffeine<Object, Object> cacheBuilder =
+        Caffeine.newBuilder().expireAfterWrite(this.config.getExpireAfterWrite());
+    if (this.weigher == null) {
+      cacheBuilder.maximumSize(this.config.getMaximumWeightPerTenant());
+    } else {
+      ToIntBiFunction<? super T, ? super V> entryWeigher = this.weigher;
+      cacheBuilder
+          .maximumWeight(this.config.getMaximumWeightPerTenant())
+          .<ContextualKey<T>, V>weigher(
+              (key, value) -> entryWeigher.applyAsInt(key.getData(), value));
+    }
+    if (this.config.getRefreshAfterWrite() != null) {
+      cacheBuilder.refreshAfterWrite(this.config.getRefreshAfterWrite());
+    }
+    if (this.config.isRecordStats()) {
+      cacheBuilder.recordStats();
+    }
+    return cacheBuilder.buildAsync(
+        (ContextualKey<T> key, Executor executor) ->
+            key.callInContext(this.loadFunction).toCompletableFuture());
+  }
+
+  private static TenantCacheStats buildStats(String tenantId, AsyncLoadingCache<?, ?> partition) {
+    CacheStats stats = partition.synchronous().stats();
+    return new TenantCacheStats(
+        tenantId,
+        stats.hitCount(),
+        stats.missCount(),
+        stats.loadSuccessCount(),
+        stats.loadFailureCount(),
+        stats.evictionCount(),
+        stats.evictionWeight(),
+        partition.synchronous().estimatedSize());
+  }
+}
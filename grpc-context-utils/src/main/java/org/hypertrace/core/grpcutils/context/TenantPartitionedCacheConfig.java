@@ -0,0 +1,47 @@
+package org.hypertrace.core.grpcutils.context;
+
+import java.time.Duration;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import lombok.Builder;
+import lombok.Value;
+
+/** Configuration for a {@link TenantPartitionedCache}. */
+@Value
+@Builder(toBuilder = true)
+public class TenantPartitionedCacheConfig {
+  public static final TenantPartitionedCacheConfig DEFAULT =
+      TenantPartitionedCacheConfig.builder().build();
+
+  /**
+   * The maximum total weight of the entries cached for each tenant. Without a weigher each entry
+   * weighs one, making this the maximum number of entries per tenant.
+   */
+  @Builder.Default long maximumWeightPerTenant = 1000;
+
+  /**
+   * The maximum number of tenants with cached entries. Beyond this, the entries of the tenants
+   * least likely to be used again are discarded.
+   */
+  @Builder.Default long maximumTenants = 100;
+
+  /** How long the entries of a tenant are kept after any of them was last requested. */
+  @Nonnull @Builder.Default Duration tenantExpireAfterAccess = Duration.ofHours(1);
+
+  /** How long an entry is cached after it is loaded. */
+  @Nonnull @Builder.Default Duration expireAfterWrite = Duration.ofMinutes(15);
+
+  /**
+   * How long after an entry is loaded that the next read triggers a reload in the background, or
+   * null to only load expired entries. While reloading, the existing value continues to be served.
+   */
+  @Nullable Duration refreshAfterWrite;
+
+  /** Whether per tenant statistics are recorded, see {@link TenantCacheStats}. */
+  @Builder.Default boolean recordStats = true;
+
+  /** The most the cache can hold across all tenants. */
+  public long getMaximumTotalWeight() {
+    return this.maximumTenants * this.maximumWeightPerTenant;
+  }
+}
@@ -0,0 +1,55 @@
+package org.hypertrace.core.grpcutils.context;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formats UUIDs in their canonical 36 character form straight from their two halves, without
+ * creating a {@link java.util.UUID}. Each byte is converted with a single lookup of its pair of hex
+ * digits.
+ */
+final class UuidFormatter {
+  private static final int LENGTH = 36;
+
+  // The two lowercase hex digits of every byte value, at twice the value
+  private static final byte[] HEX_PAIRS = new byte[512];
+
+  static {
+    byte[] hexDigits = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    for (int i = 0; i < 256; i++) {
+      HEX_PAIRS[2 * i] = hexDigits[i >>> 4];
+      HEX_PAIRS[2 * i + 1] = hexDigits[i & 0xF];
+    }
+  }
+
+  private UuidFormatter() {}
+
+  static String format(long mostSigBits, long leastSigBits) {
+    byte[] formatted = new byte[LENGTH];
+    write(mostSigBits, leastSigBits, formatted, 0);
+    // Latin-1 strings are stored as bytes, so this is a plain copy
+    return new String(formatted, StandardCharsets.ISO_8859_1);
+  }
+
+  /** Writes the formatted UUID into the array, which must have room for {@link #LENGTH} bytes. */
+  private static void write(long mostSigBits, long leastSigBits, byte[] destination, int offset) {
+    writeBytes(mostSigBits, 56, 4, destination, offset);
+    destination[offset + 8] = '-';
+    writeBytes(mostSigBits, 24, 2, destination, offset + 9);
+    destination[offset + 13] = '-';
+    writeBytes(mostSigBits, 8, 2, destination, offset + 14);
+    destination[offset + 18] = '-';
+    writeBytes(leastSigBits, 56, 2, destination, offset + 19);
+    destination[offset + 23] = '-';
+    writeBytes(leastSigBits, 40, 6, destination, offset + 24);
+  }
+
+  /** Writes count bytes of the value, starting with the byte at firstShift and moving down. */
+  private static void writeBytes(
+      long value, int firstShift, int count, byte[] destination, int offset) {
+    for (int i = 0; i < count; i++) {
+      int pairIndex = 2 * ((int) (value >>> (firstShift - 8 * i)) & 0xFF);
+      destination[offset + 2 * i] = HEX_PAIRS[pairIndex];
+      destination[offset + 2 * i + 1] = HEX_PAIRS[pairIndex + 1];
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package org.hypertrace.core.grpcutils.context;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+enum UuidRequestIdGenerator implements RequestIdGenerator {
+  RANDOM {
+    @Override
+    public String generate() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      return UuidFormatter.format(
+          withVersion(random.nextLong(), 4), withVariant(random.nextLong()));
+    }
+  },
+  TIME_ORDERED {
+    @Override
+    public String generate() {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      // 48 bits of unix time in milliseconds, followed by the version and 12 random bits
+      long mostSigBits = (System.currentTimeMillis() << 16) | (random.nextLong() & 0xFFFFL);
+      return UuidFormatter.format(withVersion(mostSigBits, 7), withVariant(random.nextLong()));
+    }
+  };
+
+  private static long withVersion(long mostSigBits, int version) {
+    return (mostSigBits & 0xFFFFFFFFFFFF0FFFL) | ((long) version << 12);
+  }
+
+  /** Sets the variant to that of RFC 4122. */
+  private static long withVariant(long leastSigBits) {
+    return (leastSigBits & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+  }
+}
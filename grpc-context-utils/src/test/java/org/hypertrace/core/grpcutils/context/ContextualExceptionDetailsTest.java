@@ -69,6 +69,26 @@ class ContextualExceptionDetailsTest {
     assertEquals("custom external description", exception.getTrailers().get(EXTERNAL_MESSAGE_KEY));
   }
 
+  @Test
+  void buildsExceptionsWithoutStackTrace() {
+    ContextualStatusExceptionBuilder builder =
+        ContextualStatusExceptionBuilder.from(Status.NOT_FOUND, TEST_CONTEXT)
+            .withExternalMessage("not found")
+            .withoutStackTrace();
+    StatusRuntimeException runtimeException = builder.buildRuntimeException();
+    StatusException checkedException = builder.buildCheckedException();
+
+    assertEquals(0, runtimeException.getStackTrace().length);
+    assertEquals(0, checkedException.getStackTrace().length);
+    assertEquals(Status.NOT_FOUND, runtimeException.getStatus());
+    assertEquals(Status.NOT_FOUND, Status.fromThrowable(checkedException));
+    assertEquals(
+        Set.of(REQUEST_ID_HEADER_KEY, TENANT_ID_HEADER_KEY, EXTERNAL_MESSAGE_KEY.originalName()),
+        runtimeException.getTrailers().keys());
+    assertEquals(TEST_CONTEXT, RequestContext.fromMetadata(checkedException.getTrailers()));
+    assertEquals("not found", checkedException.getTrailers().get(EXTERNAL_MESSAGE_KEY));
+  }
+
   @Test
   void emptyIfUnableToParseContext() {
     assertEquals(
@@ -103,6 +123,34 @@ class ContextualExceptionDetailsTest {
                     "test message"))));
   }
 
+  @Test
+  void parsesPackedMetadataIfAccepted() {
+    RequestContext packedContext = new RequestContext().put(REQUEST_ID_HEADER_KEY, TEST_REQUEST_ID);
+    Metadata metadata = new Metadata();
+    metadata.put(PackedRequestContext.METADATA_KEY, PackedRequestContext.encode(packedContext));
+    metadata.put(EXTERNAL_MESSAGE_KEY, "test message");
+
+    assertEquals(Optional.empty(), ContextualExceptionDetails.fromMetadata(metadata));
+
+    PropagatedHeaderMatcher.setDefault(PropagatedHeaderMatcher.DEFAULT.withPackedRequestContext());
+    try {
+      assertEquals(
+          Optional.of(
+              new ContextualExceptionDetails(packedContext).withExternalMessage("test message")),
+          ContextualExceptionDetails.fromMetadata(metadata));
+    } finally {
+      PropagatedHeaderMatcher.setDefault(PropagatedHeaderMatcher.DEFAULT);
+    }
+  }
+
+  @Test
+  void emptyIfRequestIdIsEmpty() {
+    assertEquals(
+        Optional.empty(),
+        ContextualExceptionDetails.fromMetadata(
+            metadataFromMap(Map.of(REQUEST_ID_HEADER_KEY, "", TENANT_ID_HEADER_KEY, TEST_TENANT))));
+  }
+
   @Test
   void buildsFromExistingException() {
     StatusRuntimeException exception =
@@ -110,4 +110,23 @@ class DefaultContextualKeyTest {
         new DefaultContextualKey<>(
             secondContext, "input", List.of(TENANT_ID_HEADER_KEY, "secondHeader", "thirdHeader")));
   }
+
+  @Test
+  void ignoresHeaderNameOrder() {
+    RequestContext context = RequestContext.forTenantId("tenant");
+    context.add("secondHeader", "second");
+    context.add("secondHeader", "other second");
+
+    DefaultContextualKey<String> key =
+        new DefaultContextualKey<>(context, "input", List.of(TENANT_ID_HEADER_KEY, "secondHeader"));
+    DefaultContextualKey<String> reorderedKey =
+        new DefaultContextualKey<>(context, "input", List.of("secondHeader", TENANT_ID_HEADER_KEY));
+
+    assertEquals(key, reorderedKey);
+    assertEquals(key.hashCode(), reorderedKey.hashCode());
+    assertEquals(
+        "DefaultContextualKey{data=input, cacheableContextHeaders="
+            + "{secondHeader=[second, other second], x-tenant-id=[tenant]}}",
+        key.toString());
+  }
 }
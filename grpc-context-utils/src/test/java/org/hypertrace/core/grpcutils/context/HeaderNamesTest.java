@@ -0,0 +1,31 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static org.hypertrace.core.grpcutils.context.RequestContextConstants.TENANT_ID_HEADER_KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class HeaderNamesTest {
+
+  @Test
+  void normalizesWellKnownNamesToTheirConstant() {
+    assertSame(TENANT_ID_HEADER_KEY, HeaderNames.normalize(TENANT_ID_HEADER_KEY));
+    assertSame(TENANT_ID_HEADER_KEY, HeaderNames.normalize(new String(TENANT_ID_HEADER_KEY)));
+    assertSame(TENANT_ID_HEADER_KEY, HeaderNames.normalize("X-Tenant-ID"));
+  }
+
+  @Test
+  void lowercasesOtherNamesWithoutRememberingThem() {
+    String lowercaseName = new String("x-custom-header");
+
+    assertEquals("x-custom-header", HeaderNames.normalize("X-Custom-Header"));
+    assertEquals("x-custom-header", HeaderNames.normalize("x-custom-HEADER"));
+    assertSame(lowercaseName, HeaderNames.normalize(lowercaseName));
+  }
+
+  @Test
+  void lowercasesNonAsciiNames() {
+    assertEquals("x-caf\u00e9", HeaderNames.normalize("X-CAF\u00c9"));
+  }
+}
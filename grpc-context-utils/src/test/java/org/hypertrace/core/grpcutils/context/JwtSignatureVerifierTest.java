@@ -0,0 +1,152 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JwtSignatureVerifierTest {
+  private static final String KEY_ID = "test-key";
+  private static final String USER_ID = "jrocket@example.com";
+
+  private static KeyPair keyPair;
+  private static KeyPair otherKeyPair;
+
+  @BeforeAll
+  static void generateKeys() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    keyPair = generator.generateKeyPair();
+    otherKeyPair = generator.generateKeyPair();
+  }
+
+  @Test
+  void verifiesTokenAgainstLocalJwksFile(@TempDir Path tempDir) throws Exception {
+    Path jwksFile = tempDir.resolve("jwks.json");
+    Files.write(jwksFile, buildJwks(KEY_ID, keyPair).getBytes(StandardCharsets.UTF_8));
+    JwtParser parser =
+        new JwtParser(
+            JwtParserConfig.builder()
+                .verificationKeyProvider(JwtVerificationKeyProvider.fromJwksFile(jwksFile))
+                .build());
+
+    assertEquals(
+        Optional.of(USER_ID), parser.fromJwt(signToken(KEY_ID, keyPair)).flatMap(Jwt::getUserId));
+    assertEquals(Optional.empty(), parser.fromJwt(signToken(KEY_ID, otherKeyPair)));
+    assertEquals(Optional.empty(), parser.fromJwt(signToken("unknown-key", keyPair)));
+  }
+
+  @Test
+  void rejectsUnsignedAndSymmetricTokens() {
+    JwtParser parser =
+        new JwtParser(
+            JwtParserConfig.builder()
+                .verificationKeyProvider(keyId -> Optional.of(keyPair.getPublic()))
+                .build());
+    String hmacToken =
+        JWT.create()
+            .withKeyId(KEY_ID)
+            .withSubject(USER_ID)
+            .sign(Algorithm.HMAC256("qwertyuiopasdfghjklzxcvbnm123456"));
+    String unsignedToken =
+        JWT.create().withKeyId(KEY_ID).withSubject(USER_ID).sign(Algorithm.none());
+
+    assertEquals(Optional.empty(), parser.fromJwt(hmacToken));
+    assertEquals(Optional.empty(), parser.fromJwt(unsignedToken));
+  }
+
+  @Test
+  void cachesKeysById() throws Exception {
+    JwtVerificationKeyProvider keyProvider = mock(JwtVerificationKeyProvider.class);
+    when(keyProvider.getPublicKey(KEY_ID)).thenReturn(Optional.of(keyPair.getPublic()));
+    JwtSignatureVerifier verifier = new JwtSignatureVerifier(keyProvider, Duration.ofMinutes(1));
+
+    verifier.verify(JWT.decode(signToken(KEY_ID, keyPair)));
+    verifier.verify(JWT.decode(signToken(KEY_ID, keyPair)));
+
+    verify(keyProvider, times(1)).getPublicKey(KEY_ID);
+  }
+
+  @Test
+  void remembersMissingKeyIds() throws Exception {
+    JwtVerificationKeyProvider keyProvider = mock(JwtVerificationKeyProvider.class);
+    when(keyProvider.getPublicKey("unknown-key")).thenReturn(Optional.empty());
+    JwtSignatureVerifier verifier = new JwtSignatureVerifier(keyProvider, Duration.ofMinutes(1));
+
+    for (int i = 0; i < 3; i++) {
+      String token = signToken("unknown-key", keyPair);
+      assertThrows(JWTVerificationException.class, () -> verifier.verify(JWT.decode(token)));
+    }
+
+    verify(keyProvider, times(1)).getPublicKey("unknown-key");
+  }
+
+  @Test
+  void failsVerificationIfKeyProviderFails() throws Exception {
+    JwtVerificationKeyProvider keyProvider = mock(JwtVerificationKeyProvider.class);
+    when(keyProvider.getPublicKey(KEY_ID)).thenThrow(new IllegalStateException("unavailable"));
+    JwtSignatureVerifier verifier = new JwtSignatureVerifier(keyProvider, Duration.ofMinutes(1));
+
+    assertThrows(
+        JWTVerificationException.class,
+        () -> verifier.verify(JWT.decode(signToken(KEY_ID, keyPair))));
+  }
+
+  @Test
+  void verifiesTokenOnceWhileCached() throws Exception {
+    JwtVerificationKeyProvider keyProvider = mock(JwtVerificationKeyProvider.class);
+    when(keyProvider.getPublicKey(KEY_ID)).thenReturn(Optional.of(keyPair.getPublic()));
+    JwtParser parser =
+        new JwtParser(JwtParserConfig.builder().verificationKeyProvider(keyProvider).build());
+    String token = signToken(KEY_ID, keyPair);
+
+    assertEquals(Optional.of(USER_ID), parser.fromJwt(token).flatMap(Jwt::getUserId));
+    assertEquals(Optional.of(USER_ID), parser.fromJwt(token).flatMap(Jwt::getUserId));
+
+    assertEquals(1, parser.getCacheStats().getLoadSuccessCount());
+    verify(keyProvider, times(1)).getPublicKey(KEY_ID);
+  }
+
+  private static String signToken(String keyId, KeyPair signingKeyPair) {
+    return JWT.create()
+        .withKeyId(keyId)
+        .withSubject(USER_ID)
+        .withExpiresAt(Instant.now().plus(Duration.ofHours(1)))
+        .sign(
+            Algorithm.RSA256(
+                (RSAPublicKey) signingKeyPair.getPublic(),
+                (RSAPrivateKey) signingKeyPair.getPrivate()));
+  }
+
+  private static String buildJwks(String keyId, KeyPair keyPair) {
+    RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+    Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    return "{\"keys\":[{\"kty\":\"RSA\",\"use\":\"sig\",\"alg\":\"RS256\",\"kid\":\""
+        + keyId
+        + "\",\"n\":\""
+        + encoder.encodeToString(publicKey.getModulus().toByteArray())
+        + "\",\"e\":\""
+        + encoder.encodeToString(publicKey.getPublicExponent().toByteArray())
+        + "\"}]}";
+  }
+}
@@ -0,0 +1,57 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.grpc.Metadata;
+import org.junit.jupiter.api.Test;
+
+class MetadataKeysTest {
+
+  @Test
+  void reusesKeysForWellKnownNames() {
+    assertSame(
+        RequestContextConstants.TENANT_ID_METADATA_KEY,
+        MetadataKeys.asciiKey(RequestContextConstants.TENANT_ID_HEADER_KEY));
+    assertSame(MetadataKeys.asciiKey("x-b3-traceid"), MetadataKeys.asciiKey("X-B3-TraceId"));
+    assertSame(
+        PackedRequestContext.METADATA_KEY,
+        MetadataKeys.binaryKey(RequestContextConstants.PACKED_REQUEST_CONTEXT_HEADER_KEY));
+  }
+
+  @Test
+  void buildsEquivalentKeys() {
+    Metadata metadata = new Metadata();
+    metadata.put(MetadataKeys.asciiKey("X-Some-Header"), "value");
+    metadata.put(MetadataKeys.binaryKey("some-header-bin"), new byte[] {1, 2});
+
+    assertEquals(
+        "value", metadata.get(Metadata.Key.of("x-some-header", Metadata.ASCII_STRING_MARSHALLER)));
+    assertEquals(
+        2,
+        metadata.get(Metadata.Key.of("some-header-bin", Metadata.BINARY_BYTE_MARSHALLER)).length);
+  }
+
+  @Test
+  void doesNotRememberKeysForOtherNames() {
+    assertEquals(MetadataKeys.asciiKey("x-some-header"), MetadataKeys.asciiKey("x-some-header"));
+    assertNotSame(MetadataKeys.asciiKey("x-some-header"), MetadataKeys.asciiKey("x-some-header"));
+  }
+
+  @Test
+  void rejectsInvalidNames() {
+    assertThrows(IllegalArgumentException.class, () -> MetadataKeys.binaryKey("not-binary"));
+  }
+
+  @Test
+  void detectsBinaryHeadersIgnoringCase() {
+    assertTrue(MetadataKeys.isBinaryHeader("grpc-trace-bin"));
+    assertTrue(MetadataKeys.isBinaryHeader("X-Request-Context-BIN"));
+    assertFalse(MetadataKeys.isBinaryHeader("x-tenant-id"));
+    assertFalse(MetadataKeys.isBinaryHeader("bin"));
+  }
+}
@@ -0,0 +1,172 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.grpc.Metadata;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class PackedRequestContextTest {
+
+  @Test
+  void roundTripsHeaders() {
+    RequestContext requestContext = new RequestContext();
+    requestContext.put("request-id", "0b7d9b64-4bb2-4a43-9c15-0c4a1b0e94f1");
+    requestContext.put("context-id", "context");
+    requestContext.add("x-custom", "first");
+    requestContext.add("x-custom", "second \u00e9");
+
+    RequestContextHeaders decoded =
+        PackedRequestContext.decode(PackedRequestContext.encode(requestContext));
+
+    assertEquals(requestContext.materializedHeaders(), decoded);
+    assertEquals(List.of("first", "second \u00e9"), decoded.allValues("x-custom"));
+  }
+
+  @Test
+  void lowercasesNames() {
+    RequestContext requestContext = new RequestContext();
+    requestContext.put("Request-Id", "0b7d9b64-4bb2-4a43-9c15-0c4a1b0e94f1");
+    requestContext.put("X-Custom", "value");
+
+    RequestContextHeaders decoded =
+        PackedRequestContext.decode(PackedRequestContext.encode(requestContext));
+
+    assertEquals("request-id", decoded.nameAt(decoded.indexOf("request-id")));
+    assertEquals("x-custom", decoded.nameAt(decoded.indexOf("x-custom")));
+  }
+
+  @Test
+  void encodesWellKnownNamesAsDictionaryIndexes() {
+    RequestContext requestContext = new RequestContext();
+    requestContext.put("request-id", "r");
+
+    // Version, dictionary index 1 tag, value length, value
+    assertArrayEquals(new byte[] {1, 3, 1, 'r'}, PackedRequestContext.encode(requestContext));
+  }
+
+  @Test
+  void packsOnlyHeadersNotReadOffTheWire() {
+    RequestContext requestContext = RequestContext.forTenantId("tenant");
+    requestContext.put("authorization", "Bearer token");
+    requestContext.put("X-B3-TraceId", "80f198ee56343ba864fe8b2a57d3eff7");
+    requestContext.put("traceparent", "00-80f198ee56343ba864fe8b2a57d3eff7-e457b5a2e4d86bd1-01");
+
+    RequestContextHeaders decoded =
+        PackedRequestContext.decode(PackedRequestContext.encode(requestContext));
+
+    assertEquals(Set.of("request-id"), decoded.names());
+    assertArrayEquals(
+        PackedRequestContext.encode(
+            new RequestContext().put("request-id", requestContext.getRequestId().orElseThrow())),
+        PackedRequestContext.encode(requestContext));
+    assertFalse(PackedRequestContext.isPackable("X-Tenant-Id"));
+    assertFalse(PackedRequestContext.isPackable("Authorization"));
+    assertFalse(PackedRequestContext.isPackable("grpc-trace-bin"));
+    assertFalse(PackedRequestContext.isPackable("tracestate"));
+  }
+
+  @Test
+  void decodesFromMetadataIfAccepted() {
+    RequestContext requestContext = new RequestContext();
+    requestContext.put("request-id", "packed");
+    requestContext.put("context-id", "context");
+    requestContext.put("x-not-propagated", "value");
+    Metadata metadata = new Metadata();
+    metadata.put(PackedRequestContext.METADATA_KEY, PackedRequestContext.encode(requestContext));
+    metadata.put(Metadata.Key.of("request-id", ASCII_STRING_MARSHALLER), "individual");
+    PropagatedHeaderMatcher matcher = PropagatedHeaderMatcher.DEFAULT.withPackedRequestContext();
+
+    for (RequestContext decoded :
+        List.of(
+            RequestContext.fromMetadata(metadata, matcher),
+            RequestContext.lazilyFromMetadata(metadata, matcher))) {
+      assertEquals(Optional.of("individual"), decoded.getRequestId());
+      assertEquals(Optional.of("context"), decoded.getHeaderValue("context-id"));
+      assertEquals(Optional.empty(), decoded.getHeaderValue("x-not-propagated"));
+      assertEquals(
+          Optional.empty(),
+          decoded.getHeaderValue(RequestContextConstants.PACKED_REQUEST_CONTEXT_HEADER_KEY));
+    }
+    assertEquals(
+        RequestContext.fromMetadata(metadata, matcher).getAllHeaders(),
+        RequestContext.lazilyFromMetadata(metadata, matcher).getAllHeaders());
+  }
+
+  @Test
+  void keepsEveryValueOfRepeatedPackedNames() {
+    RequestContext requestContext = new RequestContext();
+    requestContext.add("x-custom", "first");
+    requestContext.add("x-custom", "second");
+    requestContext.put("context-id", "packed");
+    Metadata metadata = new Metadata();
+    metadata.put(PackedRequestContext.METADATA_KEY, PackedRequestContext.encode(requestContext));
+    metadata.put(Metadata.Key.of("context-id", ASCII_STRING_MARSHALLER), "individual");
+    PropagatedHeaderMatcher matcher =
+        PropagatedHeaderMatcher.DEFAULT
+            .withAdditionalPrefixes(List.of("x-custom"))
+            .withPackedRequestContext();
+
+    RequestContext decoded = RequestContext.fromMetadata(metadata, matcher);
+
+    assertEquals(List.of("first", "second"), decoded.getAllHeaderValues("x-custom"));
+    assertEquals(List.of("individual"), decoded.getAllHeaderValues("context-id"));
+  }
+
+  @Test
+  void ignoresPackedHeaderUnlessAccepted() {
+    RequestContext requestContext = new RequestContext();
+    requestContext.put("context-id", "context");
+    Metadata metadata = new Metadata();
+    metadata.put(PackedRequestContext.METADATA_KEY, PackedRequestContext.encode(requestContext));
+
+    assertTrue(RequestContext.fromMetadata(metadata).getAllHeaders().isEmpty());
+    assertEquals(
+        Optional.empty(), RequestContext.lazilyFromMetadata(metadata).getHeaderValue("context-id"));
+  }
+
+  @Test
+  void dropsHeadersThatMayNotBePackedWhenDecoding() {
+    RequestContext requestContext = RequestContext.forTenantId("tenant");
+    requestContext.put("authorization", "Bearer token");
+    requestContext.put("traceparent", "00-80f198ee56343ba864fe8b2a57d3eff7-e457b5a2e4d86bd1-01");
+    Metadata metadata = new Metadata();
+    metadata.put(
+        PackedRequestContext.METADATA_KEY,
+        PackedRequestContext.encode(requestContext, unused -> true));
+    PropagatedHeaderMatcher matcher = PropagatedHeaderMatcher.DEFAULT.withPackedRequestContext();
+
+    for (RequestContext decoded :
+        List.of(
+            RequestContext.fromMetadata(metadata, matcher),
+            RequestContext.lazilyFromMetadata(metadata, matcher))) {
+      assertEquals(Optional.empty(), decoded.getTenantId());
+      assertEquals(Optional.empty(), decoded.getHeaderValue("authorization"));
+      assertEquals(Optional.empty(), decoded.getHeaderValue("traceparent"));
+      assertEquals(requestContext.getRequestId(), decoded.getRequestId());
+    }
+  }
+
+  @Test
+  void ignoresMalformedHeaders() {
+    assertNull(PackedRequestContext.decode(new byte[0]));
+    assertNull(PackedRequestContext.decode(new byte[] {2, 1, 1, 't'}));
+    assertNull(PackedRequestContext.decode(new byte[] {1, 1, 5, 't'}));
+    assertNull(PackedRequestContext.decode(new byte[] {1, 127, 1, 't'}));
+    assertNull(PackedRequestContext.decode(new byte[] {1, (byte) 0x80}));
+
+    Metadata metadata = new Metadata();
+    metadata.put(PackedRequestContext.METADATA_KEY, new byte[] {1, 1, 5, 't'});
+    PropagatedHeaderMatcher matcher = PropagatedHeaderMatcher.DEFAULT.withPackedRequestContext();
+    assertTrue(RequestContext.fromMetadata(metadata, matcher).getAllHeaders().isEmpty());
+    assertEquals(
+        Optional.empty(), RequestContext.lazilyFromMetadata(metadata, matcher).getRequestId());
+  }
+}
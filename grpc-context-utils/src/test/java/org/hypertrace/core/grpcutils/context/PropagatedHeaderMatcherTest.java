@@ -0,0 +1,97 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.grpc.Metadata;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PropagatedHeaderMatcherTest {
+
+  @AfterEach
+  void resetDefault() {
+    PropagatedHeaderMatcher.setDefault(PropagatedHeaderMatcher.DEFAULT);
+  }
+
+  @Test
+  void matchesDefaultPrefixesIgnoringCase() {
+    PropagatedHeaderMatcher matcher = PropagatedHeaderMatcher.DEFAULT;
+
+    assertTrue(matcher.matches("x-tenant-id"));
+    assertTrue(matcher.matches("X-Tenant-ID"));
+    assertTrue(matcher.matches("x-b3-traceid"));
+    assertTrue(matcher.matches("X-B3-SpanId"));
+    assertTrue(matcher.matches("grpc-trace-bin"));
+    assertTrue(matcher.matches("Authorization"));
+    assertFalse(matcher.matches("x-b3"));
+    assertFalse(matcher.matches("x-some-other-header"));
+    assertFalse(matcher.matches("user-agent"));
+    assertFalse(matcher.matches(""));
+  }
+
+  @Test
+  void matchesCustomPrefixes() {
+    PropagatedHeaderMatcher matcher = PropagatedHeaderMatcher.of(List.of("X-Custom-", "Other"));
+
+    assertEquals(Set.of("x-custom-", "other"), matcher.getPrefixes());
+    assertTrue(matcher.matches("x-custom-header"));
+    assertTrue(matcher.matches("X-CUSTOM-HEADER"));
+    assertTrue(matcher.matches("other-header"));
+    assertFalse(matcher.matches("x-tenant-id"));
+  }
+
+  @Test
+  void canExtendExistingMatcher() {
+    PropagatedHeaderMatcher matcher =
+        PropagatedHeaderMatcher.DEFAULT.withAdditionalPrefixes(List.of("x-custom-"));
+
+    assertTrue(matcher.matches("x-custom-header"));
+    assertTrue(matcher.matches("x-tenant-id"));
+  }
+
+  @Test
+  void usesConfiguredDefaultForMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.put(Metadata.Key.of("x-tenant-id", ASCII_STRING_MARSHALLER), "test-tenant");
+    metadata.put(Metadata.Key.of("x-custom-header", ASCII_STRING_MARSHALLER), "custom");
+
+    assertEquals(
+        Optional.empty(), RequestContext.fromMetadata(metadata).getHeaderValue("x-custom-header"));
+
+    PropagatedHeaderMatcher.setDefault(
+        PropagatedHeaderMatcher.DEFAULT.withAdditionalPrefixes(List.of("x-custom-")));
+    RequestContext requestContext = RequestContext.fromMetadata(metadata);
+
+    assertEquals(Optional.of("custom"), requestContext.getHeaderValue("x-custom-header"));
+    assertEquals(Optional.of("test-tenant"), requestContext.getTenantId());
+  }
+
+  @Test
+  void usesProvidedMatcherForMetadata() {
+    Metadata metadata = new Metadata();
+    metadata.put(Metadata.Key.of("x-tenant-id", ASCII_STRING_MARSHALLER), "test-tenant");
+    metadata.put(Metadata.Key.of("x-custom-header", ASCII_STRING_MARSHALLER), "custom");
+
+    RequestContext requestContext =
+        RequestContext.fromMetadata(metadata, PropagatedHeaderMatcher.of(List.of("x-custom-")));
+
+    assertEquals(Set.of("x-custom-header"), requestContext.getHeaderNames());
+  }
+
+  @Test
+  void acceptsPackedRequestContextOnlyIfOptedIn() {
+    PropagatedHeaderMatcher matcher = PropagatedHeaderMatcher.DEFAULT.withPackedRequestContext();
+
+    assertFalse(PropagatedHeaderMatcher.DEFAULT.isPackedRequestContextAccepted());
+    assertTrue(matcher.isPackedRequestContextAccepted());
+    assertTrue(
+        matcher.withAdditionalPrefixes(List.of("x-custom-")).isPackedRequestContextAccepted());
+    assertEquals(PropagatedHeaderMatcher.DEFAULT.getPrefixes(), matcher.getPrefixes());
+  }
+}
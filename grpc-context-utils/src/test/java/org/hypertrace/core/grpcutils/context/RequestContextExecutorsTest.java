@@ -0,0 +1,149 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RequestContextExecutorsTest {
+  private final RequestContext requestContext = RequestContext.forTenantId("tenant");
+  private ExecutorService executorService;
+
+  @BeforeEach
+  void beforeEach() {
+    this.executorService = RequestContextExecutors.propagating(Executors.newFixedThreadPool(2));
+  }
+
+  @AfterEach
+  void afterEach() throws InterruptedException {
+    this.executorService.shutdown();
+    this.executorService.awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void propagatesContextToSubmittedTasks() throws Exception {
+    Callable<RequestContext> readContext = RequestContext.CURRENT::get;
+
+    Future<RequestContext> future =
+        this.requestContext.call(() -> this.executorService.submit(readContext));
+    List<Future<RequestContext>> futures =
+        this.requestContext.call(
+            () -> this.executorService.invokeAll(List.of(readContext, readContext)));
+
+    assertSame(this.requestContext, future.get());
+    assertSame(this.requestContext, futures.get(0).get());
+    assertSame(this.requestContext, futures.get(1).get());
+    assertNull(this.executorService.submit(readContext).get());
+  }
+
+  @Test
+  void propagatesContextToAsyncStages() {
+    CompletableFuture<RequestContext> future =
+        this.requestContext.call(
+            () -> CompletableFuture.supplyAsync(RequestContext.CURRENT::get, this.executorService));
+
+    assertSame(this.requestContext, future.join());
+  }
+
+  @Test
+  void propagatesContextToForkJoinPool() throws Exception {
+    ForkJoinPool forkJoinPool = new ForkJoinPool(2);
+    try {
+      ExecutorService propagatingPool = RequestContextExecutors.propagating(forkJoinPool);
+      Callable<RequestContext> readContext = RequestContext.CURRENT::get;
+      Future<RequestContext> future =
+          this.requestContext.call(() -> propagatingPool.submit(readContext));
+
+      assertSame(this.requestContext, future.get());
+    } finally {
+      forkJoinPool.shutdown();
+    }
+  }
+
+  @Test
+  void propagatesContextThroughLambdaExecutor() {
+    Executor executor = RequestContextExecutors.propagating(runnable -> runnable.run());
+    AtomicReference<RequestContext> taskContext = new AtomicReference<>();
+
+    this.requestContext.run(
+        () -> executor.execute(() -> taskContext.set(RequestContext.CURRENT.get())));
+
+    assertSame(this.requestContext, taskContext.get());
+  }
+
+  @Test
+  void propagatesContextToThreadsFromFactory() throws Exception {
+    ThreadFactory threadFactory =
+        RequestContextExecutors.propagatingThreadFactory(Executors.defaultThreadFactory());
+    AtomicReference<RequestContext> threadContext = new AtomicReference<>();
+    Thread thread =
+        this.requestContext.call(
+            () -> threadFactory.newThread(() -> threadContext.set(RequestContext.CURRENT.get())));
+    thread.start();
+    thread.join();
+
+    assertSame(this.requestContext, threadContext.get());
+  }
+
+  @Test
+  void doesNotPropagateContextPerTaskThroughPooledThreadsFromFactory() throws Exception {
+    ThreadFactory threadFactory =
+        RequestContextExecutors.propagatingThreadFactory(Executors.defaultThreadFactory());
+    ExecutorService pooledExecutor = Executors.newSingleThreadExecutor(threadFactory);
+    RequestContext otherContext = RequestContext.forTenantId("other-tenant");
+    Callable<RequestContext> readContext = RequestContext.CURRENT::get;
+    try {
+      assertSame(
+          this.requestContext,
+          this.requestContext.call(() -> pooledExecutor.submit(readContext)).get());
+      // Unsupported: the pooled thread keeps the context of the request that created it
+      assertSame(
+          this.requestContext, otherContext.call(() -> pooledExecutor.submit(readContext)).get());
+      // Wrapping the pool captures the context per task instead
+      assertSame(
+          otherContext,
+          otherContext
+              .call(() -> RequestContextExecutors.propagating(pooledExecutor).submit(readContext))
+              .get());
+    } finally {
+      pooledExecutor.shutdown();
+    }
+  }
+
+  @Test
+  void runsEachTaskOnThreadPerTaskExecutor() throws Exception {
+    ExecutorService threadPerTaskExecutor = RequestContextExecutors.newThreadPerTaskExecutor();
+    try {
+      Future<String> future =
+          this.requestContext.call(
+              () ->
+                  threadPerTaskExecutor.submit(
+                      () -> RequestContext.CURRENT.get().getTenantId().orElseThrow()));
+
+      assertEquals("tenant", future.get());
+    } finally {
+      threadPerTaskExecutor.shutdown();
+    }
+  }
+
+  @Test
+  void rejectsNonPositivePlatformThreadLimit() {
+    assertThrows(
+        IllegalArgumentException.class, () -> RequestContextExecutors.newThreadPerTaskExecutor(0));
+  }
+}
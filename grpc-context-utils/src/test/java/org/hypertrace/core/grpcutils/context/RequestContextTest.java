@@ -4,9 +4,11 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.google.common.collect.ImmutableList;
+import io.grpc.Context;
 import io.grpc.Metadata;
 import java.util.List;
 import java.util.Map;
@@ -93,6 +95,33 @@ public class RequestContextTest {
     assertEquals(expectedRoles, actualRoles);
   }
 
+  @Test
+  void jwtClaimsFollowAuthorizationHeaderChanges() {
+    String jwt =
+        "eyJ0eXAiOiJKV1QiLCJhbGciOiJIUzI1NiJ9.eyJpc3MiOiJPbmxpbmUgSldUIEJ1aWxkZXIiLCJpYXQiOjE2MjEzNjM1OTcsIm"
+            + "V4cCI6MTY1Mjg5OTU5NywiYXVkIjoid3d3LmV4YW1wbGUuY29tIiwic3ViIjoianJvY2tldEBleGFtcGxlLmNvbSIsIkdpdmVuTmFtZSI6Ik"
+            + "pvaG5ueSIsIlN1cm5hbWUiOiJSb2NrZXQiLCJuYW1lIjoiSm9obm55IFJvY2tldCIsImVtYWlsIjoianJvY2tldEBleGFtcGxlLmNvbSIsIn"
+            + "BpY3R1cmUiOiJ3d3cuZXhhbXBsZS5jb20iLCJyb2xlcyI6WyJzdXBlcl91c2VyIiwidXNlciIsImJpbGxpbmdfYWRtaW4iXX0.lEDjPPCjr-"
+            + "Epv6pNslq-HK9vmxfstp1sY85GstlbU1I";
+
+    RequestContext requestContext = new RequestContext();
+    assertEquals(Optional.empty(), requestContext.getUserId());
+
+    requestContext.add(RequestContextConstants.AUTHORIZATION_HEADER, "Bearer " + jwt);
+    assertEquals(Optional.of("jrocket@example.com"), requestContext.getUserId());
+    assertEquals(Optional.of("Johnny Rocket"), requestContext.getName());
+
+    RequestContext copiedContext = new RequestContext(requestContext);
+    assertEquals(Optional.of("jrocket@example.com"), copiedContext.getUserId());
+
+    requestContext.add(RequestContextConstants.AUTHORIZATION_HEADER, "Bearer not-a-jwt");
+    assertEquals(Optional.empty(), requestContext.getUserId());
+    assertEquals(Optional.of("jrocket@example.com"), copiedContext.getUserId());
+
+    copiedContext.removeHeader(RequestContextConstants.AUTHORIZATION_HEADER);
+    assertEquals(Optional.empty(), copiedContext.getEmail());
+  }
+
   @Test
   public void testMetadataKeys() {
     Metadata metadata = new Metadata();
@@ -170,6 +199,84 @@ public class RequestContextTest {
         "AAARf5ZpQwlN/8FVe1axOPlaAQIdRU/Y8j0LAgE", requestContext.get("grpc-trace-bin").get());
   }
 
+  @Test
+  void lazyContextMatchesEagerContext() {
+    Metadata metadata = new Metadata();
+    metadata.put(
+        Metadata.Key.of("Authorization", Metadata.ASCII_STRING_MARSHALLER), "Bearer some-auth");
+    metadata.put(RequestContextConstants.TENANT_ID_METADATA_KEY, "test-tenant-id");
+    metadata.put(Metadata.Key.of("x-other-header", Metadata.ASCII_STRING_MARSHALLER), "other");
+    metadata.put(
+        Metadata.Key.of("grpc-trace-bin", Metadata.BINARY_BYTE_MARSHALLER),
+        "AAARf5ZpQwlN/8FVe1axOPlaAQIdRU/Y8j0LAgE".getBytes());
+
+    RequestContext lazyContext = RequestContext.lazilyFromMetadata(metadata);
+
+    assertEquals(Optional.of("test-tenant-id"), lazyContext.getTenantId());
+    assertEquals(Optional.of("Bearer some-auth"), lazyContext.getHeaderValue("AUTHORIZATION"));
+    assertEquals(
+        List.of("AAARf5ZpQwlN/8FVe1axOPlaAQIdRU/Y8j0LAgE"),
+        lazyContext.getAllHeaderValues("grpc-trace-bin"));
+    assertEquals(Optional.empty(), lazyContext.getHeaderValue("x-other-header"));
+    assertEquals(Optional.empty(), lazyContext.getHeaderValue("x-tenant-id?"));
+    assertEquals(Optional.empty(), lazyContext.getRequestId());
+    assertEquals(RequestContext.fromMetadata(metadata), lazyContext);
+    assertEquals(
+        RequestContext.fromMetadata(metadata).getAllHeaders(), lazyContext.getAllHeaders());
+  }
+
+  @Test
+  void lazyContextCopiesAreModifiedIndependently() {
+    Metadata metadata = new Metadata();
+    metadata.put(RequestContextConstants.TENANT_ID_METADATA_KEY, "test-tenant-id");
+
+    RequestContext lazyContext = RequestContext.lazilyFromMetadata(metadata);
+    RequestContext copiedContext = new RequestContext(lazyContext);
+    lazyContext.put(RequestContextConstants.REQUEST_ID_HEADER_KEY, "test-request-id");
+    copiedContext.removeHeader(RequestContextConstants.TENANT_ID_HEADER_KEY);
+
+    assertEquals(Optional.of("test-request-id"), lazyContext.getRequestId());
+    assertEquals(Optional.of("test-tenant-id"), lazyContext.getTenantId());
+    assertEquals(Set.of(), copiedContext.getHeaderNames());
+    assertEquals(
+        Optional.of("test-tenant-id"), RequestContext.fromMetadata(metadata).getTenantId());
+  }
+
+  @Test
+  void lazyContextIgnoresLaterMetadataChanges() {
+    Metadata metadata = new Metadata();
+    metadata.put(RequestContextConstants.TENANT_ID_METADATA_KEY, "test-tenant-id");
+
+    RequestContext lazyContext = RequestContext.lazilyFromMetadata(metadata);
+    metadata.removeAll(RequestContextConstants.TENANT_ID_METADATA_KEY);
+    metadata.put(RequestContextConstants.REQUEST_ID_METADATA_KEY, "test-request-id");
+
+    assertEquals(Optional.of("test-tenant-id"), lazyContext.getTenantId());
+    assertEquals(Optional.empty(), lazyContext.getRequestId());
+  }
+
+  @Test
+  void lazyContextKeepsPutHeadersAfterMetadataHeaders() {
+    Metadata metadata = new Metadata();
+    metadata.put(RequestContextConstants.TENANT_ID_METADATA_KEY, "test-tenant-id");
+    metadata.put(Metadata.Key.of("traceparent", Metadata.ASCII_STRING_MARSHALLER), "00-trace");
+
+    RequestContext lazyContext = RequestContext.lazilyFromMetadata(metadata);
+    lazyContext.put("X-Tenant-Id", "other-tenant-id");
+    lazyContext.put(RequestContextConstants.REQUEST_ID_HEADER_KEY, "test-request-id");
+    RequestContext eagerContext =
+        RequestContext.fromMetadata(metadata)
+            .put("X-Tenant-Id", "other-tenant-id")
+            .put(RequestContextConstants.REQUEST_ID_HEADER_KEY, "test-request-id");
+
+    assertEquals(Optional.of("test-tenant-id"), lazyContext.getTenantId());
+    assertEquals(
+        List.of("test-tenant-id", "other-tenant-id"),
+        lazyContext.getAllHeaderValues("x-tenant-id"));
+    assertEquals(Optional.of("test-request-id"), lazyContext.getRequestId());
+    assertEquals(eagerContext.getAllHeaders(), lazyContext.getAllHeaders());
+  }
+
   @Test
   void buildsTrailers() {
     RequestContext requestContext =
@@ -241,6 +348,95 @@ public class RequestContextTest {
     assertEquals(List.of(), requestContext.getAllHeaderValues("FIRST"));
   }
 
+  @Test
+  void groupsHeaderValuesByName() {
+    RequestContext requestContext =
+        new RequestContext().put("first", "f-v").put("second", "s-v").put("First", "f-v2");
+
+    assertEquals(
+        List.of(
+            new RequestContextHeader("first", "f-v"),
+            new RequestContextHeader("First", "f-v2"),
+            new RequestContextHeader("second", "s-v")),
+        requestContext.getAllHeaders());
+    assertEquals(
+        new RequestContext().put("second", "s-v").put("first", "f-v").put("First", "f-v2"),
+        requestContext);
+    assertNotEquals(
+        new RequestContext().put("First", "f-v2").put("first", "f-v").put("second", "s-v"),
+        requestContext);
+  }
+
+  @Test
+  void copiesAreIndependent() {
+    RequestContext originalContext = new RequestContext().put("first", "f-v");
+    RequestContext copiedContext = new RequestContext(originalContext).put("second", "s-v");
+    copiedContext.removeHeader("first");
+
+    assertEquals(
+        List.of(new RequestContextHeader("first", "f-v")), originalContext.getAllHeaders());
+    assertEquals(
+        List.of(new RequestContextHeader("second", "s-v")), copiedContext.getAllHeaders());
+  }
+
+  @Test
+  void derivedCopiesOfLargeContextsPreserveOrder() {
+    RequestContext originalContext = new RequestContext();
+    ImmutableList.Builder<RequestContextHeader> expectedHeaders = ImmutableList.builder();
+    for (int i = 0; i < 30; i++) {
+      originalContext.put("h" + i, "v" + i);
+    }
+    originalContext.put("h5", "v5-2");
+    List<RequestContextHeader> originalHeaders = originalContext.getAllHeaders();
+
+    RequestContext derivedContext = new RequestContext(originalContext).put("h5", "v5-3");
+    derivedContext.removeHeader("h10");
+    derivedContext.put("new", "n");
+    derivedContext.put("H10", "again");
+    derivedContext.add("h20", "replaced");
+
+    assertEquals(Optional.of("v1"), derivedContext.getHeaderValue("h1"));
+    assertEquals(List.of("v5", "v5-2", "v5-3"), derivedContext.getAllHeaderValues("h5"));
+    assertEquals(Optional.of("again"), derivedContext.getHeaderValue("h10"));
+    assertEquals(List.of("replaced"), derivedContext.getAllHeaderValues("h20"));
+
+    for (int i = 0; i < 30; i++) {
+      if (i != 10 && i != 20) {
+        expectedHeaders.add(new RequestContextHeader("h" + i, "v" + i));
+      }
+      if (i == 5) {
+        expectedHeaders.add(new RequestContextHeader("h5", "v5-2"));
+        expectedHeaders.add(new RequestContextHeader("h5", "v5-3"));
+      }
+    }
+    expectedHeaders.add(new RequestContextHeader("new", "n"));
+    expectedHeaders.add(new RequestContextHeader("H10", "again"));
+    expectedHeaders.add(new RequestContextHeader("h20", "replaced"));
+    assertEquals(expectedHeaders.build(), derivedContext.getAllHeaders());
+    assertEquals(originalHeaders, originalContext.getAllHeaders());
+
+    for (int i = 0; i < 20; i++) {
+      derivedContext.put("extra", "e" + i);
+    }
+    assertEquals(20, derivedContext.getAllHeaderValues("extra").size());
+    assertEquals(31, originalContext.getAllHeaders().size());
+  }
+
+  @Test
+  void reusesGrpcContextForNestedCalls() {
+    RequestContext requestContext = RequestContext.forTenantId("tenant");
+    RequestContext otherContext = RequestContext.forTenantId("other");
+
+    requestContext.run(
+        () -> {
+          Context outerContext = Context.current();
+          assertSame(outerContext, requestContext.call(Context::current));
+          requestContext.run(() -> assertSame(outerContext, Context.current()));
+          otherContext.run(() -> assertSame(otherContext, RequestContext.CURRENT.get()));
+          assertSame(requestContext, RequestContext.CURRENT.get());
+        });
+  }
+
   @Test
   void backwardsCompatibilityForAdd() {
     RequestContext requestContext = new RequestContext();
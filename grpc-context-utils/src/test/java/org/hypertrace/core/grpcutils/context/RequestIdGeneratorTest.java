@@ -0,0 +1,60 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RequestIdGeneratorTest {
+
+  @AfterEach
+  void resetDefault() {
+    RequestIdGenerator.setDefault(RequestIdGenerator.randomUuid());
+  }
+
+  @Test
+  void formatsLikeUuid() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int i = 0; i < 1000; i++) {
+      UUID uuid = new UUID(random.nextLong(), random.nextLong());
+      assertEquals(
+          uuid.toString(),
+          UuidFormatter.format(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()));
+    }
+  }
+
+  @Test
+  void generatesRandomUuids() {
+    UUID uuid = UUID.fromString(RequestIdGenerator.randomUuid().generate());
+
+    assertEquals(4, uuid.version());
+    assertEquals(2, uuid.variant());
+    assertNotEquals(
+        RequestIdGenerator.randomUuid().generate(), RequestIdGenerator.randomUuid().generate());
+  }
+
+  @Test
+  void generatesTimeOrderedUuids() throws Exception {
+    long beforeMillis = System.currentTimeMillis();
+    String first = RequestIdGenerator.timeOrderedUuid().generate();
+    Thread.sleep(2);
+    String second = RequestIdGenerator.timeOrderedUuid().generate();
+    UUID uuid = UUID.fromString(first);
+
+    assertEquals(7, uuid.version());
+    assertEquals(2, uuid.variant());
+    assertTrue(uuid.getMostSignificantBits() >>> 16 >= beforeMillis);
+    assertTrue(first.compareTo(second) < 0);
+  }
+
+  @Test
+  void usesConfiguredDefault() {
+    RequestIdGenerator.setDefault(() -> "custom-id");
+
+    assertEquals("custom-id", RequestContext.forTenantId("tenant").getRequestId().orElseThrow());
+  }
+}
@@ -0,0 +1,94 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+class RequestMemoTest {
+  private final RequestContext requestContext = RequestContext.forTenantId("tenant");
+
+  @Test
+  void loadsEachKeyOnce() {
+    AtomicInteger loadCount = new AtomicInteger();
+    Supplier<String> loader = () -> "value-" + loadCount.incrementAndGet();
+
+    assertEquals("value-1", this.requestContext.memoize("key", loader));
+    assertEquals("value-1", this.requestContext.memoize("key", loader));
+    assertEquals("value-2", this.requestContext.memoize("other-key", loader));
+    ContextualKey<Void> contextualKey = this.requestContext.buildUserContextualKey();
+    assertEquals("value-3", this.requestContext.memoize(contextualKey, loader));
+    assertEquals(
+        "value-3",
+        this.requestContext.memoize(this.requestContext.buildUserContextualKey(), loader));
+    assertNull(this.requestContext.memoize("null-key", () -> null));
+    assertNull(this.requestContext.memoize("null-key", loader));
+  }
+
+  @Test
+  void doesNotShareValuesWithCopies() {
+    this.requestContext.memoize("key", () -> "original");
+
+    assertEquals("copy", new RequestContext(this.requestContext).memoize("key", () -> "copy"));
+  }
+
+  @Test
+  void doesNotRememberFailures() {
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            this.requestContext.memoize(
+                "key",
+                () -> {
+                  throw new IllegalStateException();
+                }));
+
+    assertEquals("value", this.requestContext.memoize("key", () -> "value"));
+  }
+
+  @Test
+  void allowsNestedMemoization() {
+    assertEquals(
+        "outer inner",
+        this.requestContext.memoize(
+            "outer", () -> "outer " + this.requestContext.memoize("inner", () -> "inner")));
+  }
+
+  @Test
+  void rejectsRecursiveMemoizationOfSameKey() {
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            this.requestContext.memoize(
+                "outer",
+                () ->
+                    this.requestContext.memoize(
+                        "inner", () -> this.requestContext.memoize("outer", () -> "outer"))));
+
+    assertEquals("outer", this.requestContext.memoize("outer", () -> "outer"));
+  }
+
+  @Test
+  void stopsRememberingOnceFull() {
+    for (int i = 0; i < RequestMemo.MAX_ENTRIES; i++) {
+      this.requestContext.memoize(i, () -> "value");
+    }
+    AtomicInteger loadCount = new AtomicInteger();
+    this.requestContext.memoize("extra", loadCount::incrementAndGet);
+    this.requestContext.memoize("extra", loadCount::incrementAndGet);
+
+    assertEquals(2, loadCount.get());
+    assertEquals("value", this.requestContext.memoize(0, () -> "new value"));
+  }
+
+  @Test
+  void releasesValuesWhenCleared() {
+    this.requestContext.memoize("key", () -> "old");
+    this.requestContext.clearMemoizedValues();
+
+    assertEquals("new", this.requestContext.memoize("key", () -> "new"));
+  }
+}
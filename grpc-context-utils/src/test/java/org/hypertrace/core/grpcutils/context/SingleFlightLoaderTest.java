@@ -0,0 +1,107 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightLoaderTest {
+
+  @Test
+  void sharesInFlightLoadBetweenEqualKeys() throws Exception {
+    AtomicInteger loadCount = new AtomicInteger();
+    CompletableFuture<String> downstream = new CompletableFuture<>();
+    SingleFlightLoader<String, String> loader =
+        new SingleFlightLoader<>(
+            data -> {
+              loadCount.incrementAndGet();
+              return downstream;
+            });
+
+    CompletableFuture<String> first =
+        loader.load(RequestContext.forTenantId("tenant").buildInternalContextualKey("data"));
+    CompletableFuture<String> second =
+        loader.load(RequestContext.forTenantId("tenant").buildInternalContextualKey("data"));
+    CompletableFuture<String> otherTenant =
+        loader.load(RequestContext.forTenantId("other").buildInternalContextualKey("data"));
+
+    assertEquals(2, loadCount.get());
+    assertEquals(2, loader.getInFlightCount());
+    downstream.complete("result");
+    assertEquals("result", first.get());
+    assertEquals("result", second.get());
+    assertEquals("result", otherTenant.get());
+    assertEquals(0, loader.getInFlightCount());
+
+    loader.load(RequestContext.forTenantId("tenant").buildInternalContextualKey("data"));
+    assertEquals(3, loadCount.get());
+  }
+
+  @Test
+  void loadsInKeyContext() throws Exception {
+    SingleFlightLoader<String, String> loader =
+        new SingleFlightLoader<>(
+            data ->
+                CompletableFuture.completedFuture(
+                    data + " for " + RequestContext.CURRENT.get().getTenantId().orElseThrow()));
+
+    assertEquals(
+        "data for tenant",
+        loader.load(RequestContext.forTenantId("tenant").buildInternalContextualKey("data")).get());
+  }
+
+  @Test
+  void appliesDeadlinePerCaller() throws Exception {
+    CompletableFuture<String> downstream = new CompletableFuture<>();
+    SingleFlightLoader<String, String> loader = new SingleFlightLoader<>(data -> downstream);
+    ContextualKey<String> key = RequestContext.forTenantId("tenant").buildInternalContextualKey("");
+
+    CompletableFuture<String> impatient = loader.load(key, Duration.ofMillis(10));
+    CompletableFuture<String> patient = loader.load(key);
+
+    ExecutionException exception = assertThrows(ExecutionException.class, impatient::get);
+    assertInstanceOf(TimeoutException.class, exception.getCause());
+    assertFalse(patient.isDone());
+    downstream.complete("result");
+    assertEquals("result", patient.get());
+  }
+
+  @Test
+  void propagatesFailuresToAllCallers() {
+    SingleFlightLoader<String, String> loader =
+        new SingleFlightLoader<>(
+            data -> {
+              throw new IllegalStateException("failed");
+            });
+    ContextualKey<String> key = RequestContext.forTenantId("tenant").buildInternalContextualKey("");
+
+    for (CompletableFuture<String> result : List.of(loader.load(key), loader.load(key))) {
+      ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+      assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+    assertEquals(0, loader.getInFlightCount());
+  }
+
+  @Test
+  void cancellingCallerDoesNotCancelLoad() throws Exception {
+    CompletableFuture<String> downstream = new CompletableFuture<>();
+    SingleFlightLoader<String, String> loader = new SingleFlightLoader<>(data -> downstream);
+    ContextualKey<String> key = RequestContext.forTenantId("tenant").buildInternalContextualKey("");
+
+    loader.load(key).cancel(true);
+    CompletableFuture<String> other = loader.load(key);
+    downstream.complete("result");
+
+    assertTrue(other.isDone());
+    assertEquals("result", other.get());
+  }
+}
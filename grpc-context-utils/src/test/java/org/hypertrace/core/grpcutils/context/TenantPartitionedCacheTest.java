@@ -0,0 +1,97 @@
+package org.hypertrace.core.grpcutils.context;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class TenantPartitionedCacheTest {
+
+  @Test
+  void loadsInKeyContext() throws Exception {
+    TenantPartitionedCache<String, String> cache =
+        TenantPartitionedCache.create(
+            TenantPartitionedCacheConfig.DEFAULT,
+            data ->
+                CompletableFuture.completedFuture(
+                    data + " for " + RequestContext.CURRENT.get().getTenantId().orElseThrow()));
+
+    assertEquals(
+        "data for tenant",
+        cache.get(RequestContext.forTenantId("tenant").buildInternalContextualKey("data")).get());
+  }
+
+  @Test
+  void cachesLoadedValuesPerTenant() throws Exception {
+    AtomicInteger loadCount = new AtomicInteger();
+    TenantPartitionedCache<String, Integer> cache =
+        TenantPartitionedCache.create(
+            TenantPartitionedCacheConfig.DEFAULT,
+            data -> CompletableFuture.completedFuture(loadCount.incrementAndGet()));
+
+    assertEquals(1, cache.get(dataKeyFor("first")).get());
+    assertEquals(1, cache.get(dataKeyFor("first")).get());
+    assertEquals(2, cache.get(dataKeyFor("second")).get());
+
+    TenantCacheStats firstStats = cache.getStats().get("first");
+    assertEquals(1, firstStats.getHitCount());
+    assertEquals(1, firstStats.getMissCount());
+    assertEquals(1, firstStats.getEstimatedSize());
+    assertEquals(0, cache.getStats().get("second").getHitCount());
+
+    cache.invalidateTenant("first");
+    assertEquals(3, cache.get(dataKeyFor("first")).get());
+  }
+
+  @Test
+  void boundsEachTenantSeparately() throws Exception {
+    TenantPartitionedCache<Integer, String> cache =
+        TenantPartitionedCache.create(
+            TenantPartitionedCacheConfig.builder().maximumWeightPerTenant(10).build(),
+            data -> CompletableFuture.completedFuture("value"),
+            (data, value) -> 5);
+    RequestContext smallTenant = RequestContext.forTenantId("small");
+    RequestContext largeTenant = RequestContext.forTenantId("large");
+
+    cache.get(smallTenant.buildInternalContextualKey(0)).get();
+    for (int i = 0; i < 100; i++) {
+      cache.get(largeTenant.buildInternalContextualKey(i)).get();
+    }
+    cache.cleanUp();
+
+    assertEquals(1, cache.getStats().get("small").getEstimatedSize());
+    assertTrue(cache.getStats().get("large").getEstimatedSize() <= 2);
+    assertTrue(cache.getStats().get("large").getEvictionWeight() >= 490);
+  }
+
+  @Test
+  void boundsNumberOfTenants() throws Exception {
+    TenantPartitionedCacheConfig config =
+        TenantPartitionedCacheConfig.builder()
+            .maximumWeightPerTenant(10)
+            .maximumTenants(20)
+            .build();
+    TenantPartitionedCache<String, String> cache =
+        TenantPartitionedCache.create(config, data -> CompletableFuture.completedFuture("value"));
+
+    for (int i = 0; i < 1000; i++) {
+      RequestContext tenantContext = RequestContext.forTenantId("tenant-" + i);
+      for (int j = 0; j < 10; j++) {
+        cache.get(tenantContext.buildInternalContextualKey("data-" + j)).get();
+      }
+    }
+    cache.cleanUp();
+
+    assertEquals(200, config.getMaximumTotalWeight());
+    assertTrue(cache.getStats().size() <= 20);
+    assertTrue(
+        cache.getStats().values().stream().mapToLong(TenantCacheStats::getEstimatedSize).sum()
+            <= config.getMaximumTotalWeight());
+  }
+
+  private static ContextualKey<String> dataKeyFor(String tenantId) {
+    return RequestContext.forTenantId(tenantId).buildInternalContextualKey("data");
+  }
+}
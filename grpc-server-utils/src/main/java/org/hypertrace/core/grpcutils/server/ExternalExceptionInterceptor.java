@@ -1,6 +1,5 @@
 package org.hypertrace.core.grpcutils.server;
 
-import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
 import static org.hypertrace.core.grpcutils.context.ContextualStatusExceptionBuilder.from;
 
 import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
@@ -11,10 +10,10 @@ import io.grpc.ServerCallHandler;
 import io.grpc.ServerInterceptor;
 import io.grpc.Status;
 import java.util.Optional;
-import java.util.UUID;
 import org.hypertrace.core.grpcutils.context.ContextualExceptionDetails;
 import org.hypertrace.core.grpcutils.context.RequestContext;
 import org.hypertrace.core.grpcutils.context.RequestContextConstants;
+import org.hypertrace.core.grpcutils.context.RequestIdGenerator;
 
 /**
  * This interceptor can be used at the edge to scrub any sensitive information such as an exception
@@ -70,7 +69,7 @@ public class ExternalExceptionInterceptor implements ServerInterceptor {
   }
 
   protected String generateDefaultRequestId() {
-    return UUID.randomUUID().toString();
+    return RequestIdGenerator.getDefault().generate();
   }
 
   protected String getDefaultErrorMessage() {
@@ -90,9 +89,7 @@ public class ExternalExceptionInterceptor implements ServerInterceptor {
   /** For now, only propagate request ID */
   protected Metadata buildExternalTrailers(Metadata receivedTrailers, String requestId) {
     Metadata externalTrailers = new Metadata();
-    externalTrailers.put(
-        Metadata.Key.of(RequestContextConstants.REQUEST_ID_HEADER_KEY, ASCII_STRING_MARSHALLER),
-        requestId);
+    externalTrailers.put(RequestContextConstants.REQUEST_ID_METADATA_KEY, requestId);
     return externalTrailers;
   }
 }
@@ -13,8 +13,8 @@ import io.grpc.ServerCallHandler;
 import io.grpc.ServerInterceptor;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
-import org.hypertrace.core.grpcutils.context.FastUUIDGenerator;
 import org.hypertrace.core.grpcutils.context.RequestContext;
+import org.hypertrace.core.grpcutils.context.RequestIdGenerator;
 import org.slf4j.MDC;
 
 @Slf4j
@@ -27,12 +27,12 @@ public final class RequestContextLoggingServerInterceptor implements ServerInter
       ServerCallHandler<ReqT, RespT> serverCallHandler) {
     RequestContext currentContext =
         Optional.ofNullable(RequestContext.CURRENT.get())
-            .orElseGet(() -> RequestContext.fromMetadata(metadata));
+            .orElseGet(() -> RequestContext.lazilyFromMetadata(metadata));
     Optional<String> opRequestId = currentContext.getHeaderValue(REQUEST_ID_HEADER_KEY);
     Optional<String> opTenantId = currentContext.getHeaderValue(TENANT_ID_HEADER_KEY);
     Optional<String> opContextId = currentContext.getHeaderValue(CONTEXT_ID_HEADER_KEY);
     if (opRequestId.isEmpty()) {
-      opRequestId = Optional.of(FastUUIDGenerator.randomUUID().toString());
+      opRequestId = Optional.of(RequestIdGenerator.getDefault().generate());
     }
     final String requestId = opRequestId.get();
     ServerCall.Listener<ReqT> listener =
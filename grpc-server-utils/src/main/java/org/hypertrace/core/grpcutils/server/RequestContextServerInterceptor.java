@@ -2,19 +2,19 @@ package org.hypertrace.core.grpcutils.server;
 
 import io.grpc.Context;
 import io.grpc.Contexts;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
 import io.grpc.Metadata;
 import io.grpc.ServerCall;
 import io.grpc.ServerCallHandler;
 import io.grpc.ServerInterceptor;
-import java.util.Optional;
-import java.util.UUID;
 import org.hypertrace.core.grpcutils.context.RequestContext;
 import org.hypertrace.core.grpcutils.context.RequestContextConstants;
+import org.hypertrace.core.grpcutils.context.RequestIdGenerator;
 
 /**
  * Interceptor which intercepts the request headers to extract request context and sets it in the
  * context so that the server logic can use the context and they can be passed onto other downstream
- * services.
+ * services. Values memoized in a request context created here are released when the call ends.
  */
 public class RequestContextServerInterceptor implements ServerInterceptor {
 
@@ -23,18 +23,43 @@ public class RequestContextServerInterceptor implements ServerInterceptor {
       ServerCall<ReqT, RespT> serverCall,
       Metadata metadata,
       ServerCallHandler<ReqT, RespT> serverCallHandler) {
+    RequestContext existingContext = RequestContext.CURRENT.get();
     RequestContext currentContext =
-        Optional.ofNullable(RequestContext.CURRENT.get())
-            .orElseGet(() -> RequestContext.fromMetadata(metadata));
+        existingContext == null ? RequestContext.lazilyFromMetadata(metadata) : existingContext;
     if (currentContext.getHeaderValue(RequestContextConstants.REQUEST_ID_HEADER_KEY).isEmpty()) {
       currentContext.put(
-          RequestContextConstants.REQUEST_ID_HEADER_KEY, UUID.randomUUID().toString());
+          RequestContextConstants.REQUEST_ID_HEADER_KEY,
+          RequestIdGenerator.getDefault().generate());
     }
 
-    return Contexts.interceptCall(
-        Context.current().withValue(RequestContext.CURRENT, currentContext),
-        serverCall,
-        metadata,
-        serverCallHandler);
+    ServerCall.Listener<ReqT> listener =
+        Contexts.interceptCall(
+            Context.current().withValue(RequestContext.CURRENT, currentContext),
+            serverCall,
+            metadata,
+            serverCallHandler);
+    if (existingContext != null) {
+      // The context outlives this call, so its memoized values are left to its owner
+      return listener;
+    }
+    return new SimpleForwardingServerCallListener<>(listener) {
+      @Override
+      public void onCancel() {
+        try {
+          super.onCancel();
+        } finally {
+          currentContext.clearMemoizedValues();
+        }
+      }
+
+      @Override
+      public void onComplete() {
+        try {
+          super.onComplete();
+        } finally {
+          currentContext.clearMemoizedValues();
+        }
+      }
+    };
   }
 }
@@ -36,7 +36,8 @@ public class ThrowableResponseInterceptor implements ServerInterceptor {
             }
             super.close(
                 status,
-                collectAndMergeMetadata(RequestContext.fromMetadata(headers), trailers, status));
+                collectAndMergeMetadata(
+                    RequestContext.lazilyFromMetadata(headers), trailers, status));
           }
         };
 
@@ -0,0 +1,21 @@
+plugins {
+  java
+  alias(localLibs.plugins.jmh)
+}
+
+dependencies {
+  jmhImplementation(projects.grpcContextUtils)
+  jmhImplementation(projects.grpcClientUtils)
+  jmhImplementation(projects.grpcServerUtils)
+  jmhImplementation(projects.grpcCircuitbreakerUtils)
+  jmhImplementation(commonLibs.grpc.api)
+}
+
+jmh {
+  jmhVersion.set("1.37")
+  // Allocation rates are as important as timings for these paths
+  profilers.add("gc")
+  // Machine readable results, so runs can be compared across changes
+  resultFormat.set("JSON")
+  resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
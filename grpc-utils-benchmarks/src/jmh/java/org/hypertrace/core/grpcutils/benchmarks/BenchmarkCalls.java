@@ -0,0 +1,125 @@
+package org.hypertrace.core.grpcutils.benchmarks;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.Status;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+
+/** In memory calls that do no transport work, so interceptors can be measured in isolation. */
+final class BenchmarkCalls {
+  static final MethodDescriptor<String, String> METHOD =
+      MethodDescriptor.<String, String>newBuilder()
+          .setType(MethodDescriptor.MethodType.UNARY)
+          .setFullMethodName(MethodDescriptor.generateFullMethodName("benchmark.Service", "Call"))
+          .setRequestMarshaller(StringMarshaller.INSTANCE)
+          .setResponseMarshaller(StringMarshaller.INSTANCE)
+          .build();
+
+  private BenchmarkCalls() {}
+
+  /** A server call that discards everything sent on it, remembering the status it closed with. */
+  static final class NoopServerCall extends ServerCall<String, String> {
+    @Nullable Status closedStatus;
+
+    @Override
+    public void request(int numMessages) {}
+
+    @Override
+    public void sendHeaders(Metadata headers) {}
+
+    @Override
+    public void sendMessage(String message) {}
+
+    @Override
+    public void close(Status status, Metadata trailers) {
+      this.closedStatus = status;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return false;
+    }
+
+    @Override
+    public MethodDescriptor<String, String> getMethodDescriptor() {
+      return METHOD;
+    }
+  }
+
+  /** A channel whose calls discard what is sent and close with the configured status on start. */
+  static final class NoopChannel extends Channel {
+    private final Status closingStatus;
+
+    NoopChannel(Status closingStatus) {
+      this.closingStatus = closingStatus;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(
+        MethodDescriptor<ReqT, RespT> methodDescriptor, CallOptions callOptions) {
+      return new NoopClientCall<>(this.closingStatus);
+    }
+
+    @Override
+    public String authority() {
+      return "benchmark";
+    }
+  }
+
+  private static final class NoopClientCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+    private final Status closingStatus;
+    @Nullable private Listener<RespT> listener;
+
+    private NoopClientCall(Status closingStatus) {
+      this.closingStatus = closingStatus;
+    }
+
+    @Override
+    public void start(Listener<RespT> responseListener, Metadata headers) {
+      this.listener = responseListener;
+    }
+
+    @Override
+    public void request(int numMessages) {}
+
+    @Override
+    public void cancel(@Nullable String message, @Nullable Throwable cause) {}
+
+    @Override
+    public void halfClose() {
+      if (this.listener != null) {
+        this.listener.onClose(this.closingStatus, new Metadata());
+      }
+    }
+
+    @Override
+    public void sendMessage(ReqT message) {}
+  }
+
+  private enum StringMarshaller implements MethodDescriptor.Marshaller<String> {
+    INSTANCE;
+
+    @Override
+    public InputStream stream(String value) {
+      return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String parse(InputStream stream) {
+      try {
+        return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package org.hypertrace.core.grpcutils.benchmarks;
+
+import static io.grpc.Metadata.ASCII_STRING_MARSHALLER;
+import static io.grpc.Metadata.BINARY_BYTE_MARSHALLER;
+
+import io.grpc.Metadata;
+import java.nio.charset.StandardCharsets;
+
+/** Realistic header sets shared by the benchmark suites. */
+final class BenchmarkData {
+  static final String TENANT_ID = "3e761879-c77b-4d8c-a069-b4d2a2b6a3d4";
+  static final String REQUEST_ID = "0b7d9b64-4bb2-4a43-9c15-0c4a1b0e94f1";
+  static final String JWT =
+      "eyJ0eXAiOiJKV1QiLCJhbGciOiJIUzI1NiJ9.eyJpc3MiOiJPbmxpbmUgSldUIEJ1aWxkZXIiLCJpYXQiOjE2MjEzNjM1OTcsIm"
+          + "V4cCI6NDEwMjQ0NDgwMCwiYXVkIjoid3d3LmV4YW1wbGUuY29tIiwic3ViIjoianJvY2tldEBleGFtcGxlLmNvbSIsIkdpdmVuTmFtZSI6Ik"
+          + "pvaG5ueSIsIlN1cm5hbWUiOiJSb2NrZXQiLCJuYW1lIjoiSm9obm55IFJvY2tldCIsImVtYWlsIjoianJvY2tldEBleGFtcGxlLmNvbSIsIn"
+          + "BpY3R1cmUiOiJ3d3cuZXhhbXBsZS5jb20iLCJyb2xlcyI6WyJzdXBlcl91c2VyIiwidXNlciIsImJpbGxpbmdfYWRtaW4iXX0.veXV3NzltI"
+          + "rGIr7GhXgmHoRPxGfGRl4xw0IfV1ePMl8";
+
+  private BenchmarkData() {}
+
+  /**
+   * Headers as seen by an internal service: propagated context and tracing headers, plus the
+   * transport and proxy headers that must be filtered out.
+   */
+  static Metadata inboundMetadata() {
+    Metadata metadata = new Metadata();
+    putAscii(metadata, "x-tenant-id", TENANT_ID);
+    putAscii(metadata, "request-id", REQUEST_ID);
+    putAscii(metadata, "authorization", "Bearer " + JWT);
+    putAscii(metadata, "traceparent", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01");
+    putAscii(metadata, "tracestate", "congo=t61rcWkgMzE");
+    putAscii(metadata, "X-B3-TraceId", "80f198ee56343ba864fe8b2a57d3eff7");
+    putAscii(metadata, "X-B3-SpanId", "e457b5a2e4d86bd1");
+    putAscii(metadata, "X-B3-Sampled", "1");
+    metadata.put(
+        Metadata.Key.of("grpc-trace-bin", BINARY_BYTE_MARSHALLER),
+        "AAARf5ZpQwlN/8FVe1axOPlaAQIdRU/Y8j0LAgE".getBytes(StandardCharsets.UTF_8));
+    putAscii(metadata, "user-agent", "grpc-java-netty/1.75.0");
+    putAscii(metadata, "content-type", "application/grpc");
+    putAscii(metadata, "grpc-accept-encoding", "gzip");
+    putAscii(metadata, "x-forwarded-for", "10.0.0.12, 10.0.3.4");
+    putAscii(metadata, "x-forwarded-proto", "https");
+    putAscii(metadata, "x-envoy-expected-rq-timeout-ms", "15000");
+    putAscii(metadata, "x-request-start", "t=1700000000.123");
+    return metadata;
+  }
+
+  private static void putAscii(Metadata metadata, String key, String value) {
+    metadata.put(Metadata.Key.of(key, ASCII_STRING_MARSHALLER), value);
+  }
+}
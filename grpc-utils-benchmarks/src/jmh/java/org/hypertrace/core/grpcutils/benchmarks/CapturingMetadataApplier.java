@@ -0,0 +1,49 @@
+package org.hypertrace.core.grpcutils.benchmarks;
+
+import io.grpc.CallCredentials;
+import io.grpc.CallCredentials.MetadataApplier;
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import java.util.concurrent.Executor;
+import org.hypertrace.core.grpcutils.context.RequestContext;
+
+/**
+ * Captures the metadata that call credentials attach to an outbound call, applying them on the
+ * calling thread as a direct executor would.
+ */
+final class CapturingMetadataApplier extends MetadataApplier {
+  private static final Executor DIRECT_EXECUTOR = Runnable::run;
+
+  private Metadata metadata;
+
+  /**
+   * Applies the provided credentials with the request context bound to the current gRPC context,
+   * where the request context credentials read it from.
+   */
+  static Metadata apply(CallCredentials credentials, Context contextWithRequestContext) {
+    CapturingMetadataApplier applier = new CapturingMetadataApplier();
+    Context previous = contextWithRequestContext.attach();
+    try {
+      // The request context credentials read nothing from the request info
+      credentials.applyRequestMetadata(null, DIRECT_EXECUTOR, applier);
+    } finally {
+      contextWithRequestContext.detach(previous);
+    }
+    return applier.metadata;
+  }
+
+  static Context bind(RequestContext requestContext) {
+    return Context.ROOT.withValue(RequestContext.CURRENT, requestContext);
+  }
+
+  @Override
+  public void apply(Metadata headers) {
+    this.metadata = headers;
+  }
+
+  @Override
+  public void fail(Status status) {
+    throw status.asRuntimeException();
+  }
+}
@@ -0,0 +1,79 @@
+package org.hypertrace.core.grpcutils.benchmarks;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptors;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+import org.hypertrace.circuitbreaker.grpcutils.CircuitBreakerConfiguration;
+import org.hypertrace.circuitbreaker.grpcutils.CircuitBreakerInterceptorFactory;
+import org.hypertrace.circuitbreaker.grpcutils.CircuitBreakerThresholds;
+import org.hypertrace.core.grpcutils.context.RequestContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a successful unary call through the circuit breaker interceptor, with a single shared
+ * breaker or one breaker per tenant selected from the request context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CircuitBreakerInterceptorBenchmark {
+  private static final ClientCall.Listener<String> NOOP_LISTENER = new ClientCall.Listener<>() {};
+
+  @Param({"false", "true"})
+  public boolean keyedByTenant;
+
+  private RequestContext requestContext;
+  private Channel channel;
+
+  @Setup
+  public void setup() {
+    this.requestContext = RequestContext.fromMetadata(BenchmarkData.inboundMetadata());
+    CircuitBreakerConfiguration<String> configuration =
+        CircuitBreakerConfiguration.<String>builder()
+            .enabled(true)
+            .requestClass(String.class)
+            .keyFunction(
+                this.keyedByTenant
+                    ? (requestContext, request) -> requestContext.getTenantId().orElse(null)
+                    : null)
+            .defaultThresholds(CircuitBreakerThresholds.builder().build())
+            .build();
+    CircuitBreakerInterceptorFactory interceptorFactory =
+        new CircuitBreakerInterceptorFactory(Clock.systemUTC());
+    this.channel =
+        ClientInterceptors.intercept(
+            new BenchmarkCalls.NoopChannel(Status.OK),
+            interceptorFactory.buildInterceptor(configuration));
+  }
+
+  @Benchmark
+  public ClientCall<String, String> unaryCall() {
+    return this.requestContext.call(
+        () -> {
+          ClientCall<String, String> call =
+              this.channel.newCall(BenchmarkCalls.METHOD, CallOptions.DEFAULT);
+          call.start(NOOP_LISTENER, new Metadata());
+          call.sendMessage("request");
+          call.halfClose();
+          return call;
+        });
+  }
+}
@@ -0,0 +1,59 @@
+package org.hypertrace.core.grpcutils.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.hypertrace.core.grpcutils.context.ContextualKey;
+import org.hypertrace.core.grpcutils.context.RequestContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures building a {@link ContextualKey} for a request and using it to look up a cached value,
+ * as the caches keyed by request context do on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextualKeyBenchmark {
+  private RequestContext requestContext;
+  private ContextualKey<String> contextualKey;
+  private Map<ContextualKey<String>, String> cache;
+
+  @Setup
+  public void setup() {
+    this.requestContext = RequestContext.fromMetadata(BenchmarkData.inboundMetadata());
+    this.contextualKey = this.requestContext.buildUserContextualKey("entity-id");
+    this.cache = new HashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      this.cache.put(this.requestContext.buildUserContextualKey("entity-" + i), "value");
+    }
+    this.cache.put(this.contextualKey, "value");
+  }
+
+  @Benchmark
+  public ContextualKey<String> buildKey() {
+    return this.requestContext.buildUserContextualKey("entity-id");
+  }
+
+  @Benchmark
+  public int hashCodeOfBuiltKey() {
+    return this.contextualKey.hashCode();
+  }
+
+  @Benchmark
+  public String buildKeyAndLookup() {
+    return this.cache.get(this.requestContext.buildUserContextualKey("entity-id"));
+  }
+}
@@ -0,0 +1,51 @@
+package org.hypertrace.core.grpcutils.benchmarks;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.hypertrace.core.grpcutils.context.JwtParserConfig;
+import org.hypertrace.core.grpcutils.context.RequestContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading a claim of the token in the authorization header of a new request context, with
+ * the token already in the shared parser cache, and with a parser that caches nothing so the token
+ * is decoded on every call. Each forked run configures the parser for its own parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtParserBenchmark {
+  private static final String AUTH_HEADER = "Bearer " + BenchmarkData.JWT;
+
+  @Param({"true", "false"})
+  public boolean cacheTokens;
+
+  @Setup
+  public void setup() {
+    JwtParserConfig config =
+        this.cacheTokens
+            ? JwtParserConfig.DEFAULT
+            : JwtParserConfig.builder().maximumCacheSize(0).recordStats(false).build();
+    RequestContext.configureJwtParser(config);
+    this.readUserId();
+  }
+
+  @Benchmark
+  public Optional<String> readUserId() {
+    // A new context each call, as the decoded token is also remembered by the context
+    return new RequestContext().put("authorization", AUTH_HEADER).getUserId();
+  }
+}
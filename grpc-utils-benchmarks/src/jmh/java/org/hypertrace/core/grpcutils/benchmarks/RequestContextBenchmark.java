@@ -0,0 +1,61 @@
+package org.hypertrace.core.grpcutils.benchmarks;
+
+import io.grpc.Metadata;
+import java.util.concurrent.TimeUnit;
+import org.hypertrace.core.grpcutils.context.RequestContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures building a {@link RequestContext} from inbound metadata followed by the reads a typical
+ * handler performs. Run with the gc profiler to compare bytes allocated per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestContextBenchmark {
+  private Metadata metadata;
+  private RequestContext requestContext;
+
+  @Setup
+  public void setup() {
+    this.metadata = BenchmarkData.inboundMetadata();
+    this.requestContext = RequestContext.fromMetadata(this.metadata);
+  }
+
+  @Benchmark
+  public RequestContext fromMetadata() {
+    return RequestContext.fromMetadata(this.metadata);
+  }
+
+  @Benchmark
+  public void fromMetadataWithTypicalReads(Blackhole blackhole) {
+    RequestContext context = RequestContext.fromMetadata(this.metadata);
+    blackhole.consume(context.getTenantId());
+    blackhole.consume(context.getRequestId());
+    blackhole.consume(context.getHeaderValue("traceparent"));
+    blackhole.consume(context.getAllHeaderValues("x-b3-traceid"));
+  }
+
+  @Benchmark
+  public RequestContext copyAndOverrideHeader() {
+    return new RequestContext(this.requestContext).withUserTrackingSuppressed();
+  }
+
+  @Benchmark
+  public void getAllHeaders(Blackhole blackhole) {
+    blackhole.consume(this.requestContext.getAllHeaders());
+  }
+}
@@ -0,0 +1,69 @@
+package org.hypertrace.core.grpcutils.benchmarks;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.hypertrace.core.grpcutils.context.RequestContext;
+import org.hypertrace.core.grpcutils.context.RequestContextExecutors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures binding a {@link RequestContext} to the current gRPC context, reading it back, and
+ * handing it to a task on another thread through a propagating executor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestContextBindingBenchmark {
+  private static final Callable<RequestContext> READ_CURRENT = RequestContext.CURRENT::get;
+
+  private RequestContext requestContext;
+  private ExecutorService plainExecutor;
+  private ExecutorService propagatingExecutor;
+
+  @Setup
+  public void setup() {
+    this.requestContext = RequestContext.forTenantId(BenchmarkData.TENANT_ID);
+    this.plainExecutor = Executors.newSingleThreadExecutor();
+    this.propagatingExecutor = RequestContextExecutors.propagating(this.plainExecutor);
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.plainExecutor.shutdown();
+  }
+
+  @Benchmark
+  public RequestContext bindAndRead() {
+    return this.requestContext.call(READ_CURRENT);
+  }
+
+  @Benchmark
+  public RequestContext readWhileBound() {
+    return this.requestContext.call(() -> this.requestContext.call(READ_CURRENT));
+  }
+
+  @Benchmark
+  public RequestContext forkWithoutContext() throws Exception {
+    return this.plainExecutor.submit(READ_CURRENT).get();
+  }
+
+  @Benchmark
+  public RequestContext forkWithContext() {
+    return this.requestContext.call(() -> this.propagatingExecutor.submit(READ_CURRENT).get());
+  }
+}
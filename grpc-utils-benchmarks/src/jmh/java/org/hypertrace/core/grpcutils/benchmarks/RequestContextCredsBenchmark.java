@@ -0,0 +1,51 @@
+package org.hypertrace.core.grpcutils.benchmarks;
+
+import io.grpc.CallCredentials;
+import io.grpc.Context;
+import io.grpc.Metadata;
+import java.util.concurrent.TimeUnit;
+import org.hypertrace.core.grpcutils.client.ContextKeyBasedCreds;
+import org.hypertrace.core.grpcutils.client.RequestContextPropagationFormat;
+import org.hypertrace.core.grpcutils.context.RequestContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the client credentials writing a request context to the metadata of an outbound call,
+ * in each propagation format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestContextCredsBenchmark {
+  @Param({"INDIVIDUAL_HEADERS", "PACKED_HEADER"})
+  public RequestContextPropagationFormat propagationFormat;
+
+  private RequestContext requestContext;
+  private Context boundContext;
+  private CallCredentials creds;
+
+  @Setup
+  public void setup() {
+    this.requestContext = RequestContext.fromMetadata(BenchmarkData.inboundMetadata());
+    this.boundContext = CapturingMetadataApplier.bind(this.requestContext);
+    this.creds = new ContextKeyBasedCreds(RequestContext.CURRENT, this.propagationFormat);
+  }
+
+  @Benchmark
+  public Metadata applyRequestContext() {
+    return CapturingMetadataApplier.apply(this.creds, this.boundContext);
+  }
+}
@@ -0,0 +1,51 @@
+package org.hypertrace.core.grpcutils.benchmarks;
+
+import io.grpc.Metadata;
+import java.util.concurrent.TimeUnit;
+import org.hypertrace.core.grpcutils.context.RequestContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures reading user claims from the authorization header of a request context, as a handler
+ * would when resolving the caller's identity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestContextJwtBenchmark {
+  private Metadata metadata;
+
+  @Setup
+  public void setup() {
+    this.metadata = BenchmarkData.inboundMetadata();
+    // Warm the shared parser cache so only the per request cost is measured
+    RequestContext.fromMetadata(this.metadata).getUserId();
+  }
+
+  @Benchmark
+  public void readUserIdentityClaims(Blackhole blackhole) {
+    RequestContext context = RequestContext.fromMetadata(this.metadata);
+    blackhole.consume(context.getUserId());
+    blackhole.consume(context.getName());
+    blackhole.consume(context.getEmail());
+    blackhole.consume(context.getPictureUrl());
+  }
+
+  @Benchmark
+  public void readSingleClaim(Blackhole blackhole) {
+    blackhole.consume(RequestContext.fromMetadata(this.metadata).getUserId());
+  }
+}
@@ -0,0 +1,51 @@
+package org.hypertrace.core.grpcutils.benchmarks;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.hypertrace.core.grpcutils.context.FastUUIDGenerator;
+import org.hypertrace.core.grpcutils.context.RequestIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares generating request ids with {@link RequestIdGenerator} against the previous paths of
+ * formatting a {@link UUID}. Runs with several threads, as {@link UUID#randomUUID()} contends on a
+ * shared {@link java.security.SecureRandom}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RequestIdBenchmark {
+
+  @Benchmark
+  public String secureRandomUuid() {
+    return UUID.randomUUID().toString();
+  }
+
+  @Benchmark
+  public String fastUuid() {
+    return FastUUIDGenerator.randomUUID().toString();
+  }
+
+  @Benchmark
+  public String randomUuidGenerator() {
+    return RequestIdGenerator.randomUuid().generate();
+  }
+
+  @Benchmark
+  public String timeOrderedUuidGenerator() {
+    return RequestIdGenerator.timeOrderedUuid().generate();
+  }
+}
@@ -0,0 +1,101 @@
+package org.hypertrace.core.grpcutils.benchmarks;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import java.util.concurrent.TimeUnit;
+import org.hypertrace.core.grpcutils.context.RequestContext;
+import org.hypertrace.core.grpcutils.server.ExternalExceptionInterceptor;
+import org.hypertrace.core.grpcutils.server.RequestContextLoggingServerInterceptor;
+import org.hypertrace.core.grpcutils.server.RequestContextServerInterceptor;
+import org.hypertrace.core.grpcutils.server.ThrowableResponseInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures each server interceptor over a whole call, from the inbound headers to the handler
+ * completing. The handler reads the request context and, for the exception interceptors, fails
+ * the call with the context's trailers as a service reporting an expected error would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServerInterceptorBenchmark {
+  private static final ServerCall.Listener<String> NOOP_LISTENER = new ServerCall.Listener<>() {};
+
+  private final RequestContextServerInterceptor requestContextInterceptor =
+      new RequestContextServerInterceptor();
+  private final RequestContextLoggingServerInterceptor loggingInterceptor =
+      new RequestContextLoggingServerInterceptor();
+  private final ExternalExceptionInterceptor externalExceptionInterceptor =
+      new ExternalExceptionInterceptor();
+  private final ThrowableResponseInterceptor throwableResponseInterceptor =
+      new ThrowableResponseInterceptor();
+  private Metadata metadata;
+  private ServerCallHandler<String, String> succeedingHandler;
+  private ServerCallHandler<String, String> failingHandler;
+
+  @Setup
+  public void setup() {
+    this.metadata = BenchmarkData.inboundMetadata();
+    this.succeedingHandler =
+        (call, headers) -> {
+          RequestContext.CURRENT.get().getTenantId();
+          call.close(Status.OK, new Metadata());
+          return NOOP_LISTENER;
+        };
+    this.failingHandler =
+        (call, headers) -> {
+          RequestContext requestContext = RequestContext.lazilyFromMetadata(headers);
+          call.close(
+              Status.NOT_FOUND.withDescription("Entity not found"),
+              requestContext.buildTrailers());
+          return NOOP_LISTENER;
+        };
+  }
+
+  @Benchmark
+  public ServerCall.Listener<String> requestContextInterceptor() {
+    ServerCall.Listener<String> listener =
+        this.requestContextInterceptor.interceptCall(
+            new BenchmarkCalls.NoopServerCall(), this.metadata, this.succeedingHandler);
+    listener.onComplete();
+    return listener;
+  }
+
+  @Benchmark
+  public ServerCall.Listener<String> loggingInterceptor() {
+    ServerCall.Listener<String> listener =
+        this.loggingInterceptor.interceptCall(
+            new BenchmarkCalls.NoopServerCall(), this.metadata, this.succeedingHandler);
+    listener.onMessage("request");
+    listener.onComplete();
+    return listener;
+  }
+
+  @Benchmark
+  public Status externalExceptionInterceptor() {
+    BenchmarkCalls.NoopServerCall call = new BenchmarkCalls.NoopServerCall();
+    this.externalExceptionInterceptor.interceptCall(call, this.metadata, this.failingHandler);
+    return call.closedStatus;
+  }
+
+  @Benchmark
+  public Status throwableResponseInterceptor() {
+    BenchmarkCalls.NoopServerCall call = new BenchmarkCalls.NoopServerCall();
+    this.throwableResponseInterceptor.interceptCall(call, this.metadata, this.failingHandler);
+    return call.closedStatus;
+  }
+}
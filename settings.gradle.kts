@@ -29,3 +29,4 @@ include(":grpc-context-utils")
 include(":grpc-server-utils")
 include(":grpc-validation-utils")
 include(":grpc-circuitbreaker-utils")
+include(":grpc-utils-benchmarks")